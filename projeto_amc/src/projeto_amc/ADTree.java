@@ -0,0 +1,135 @@
+package projeto_amc;
+
+import java.util.Arrays;
+
+// ADtree (all-dimensions tree, Moore & Lee): guarda as contagens de todas as conjunções de igualdades.
+// Cada nó tem, para cada variável seguinte, um "vary node" com um filho por valor, exceto o valor
+// mais comum (MCV), cuja contagem se obtém por subtração. Nós com poucas linhas ficam como lista de
+// linhas (leaf-list) em vez de serem expandidos. Uma consulta não depende do número de linhas.
+final class ADTree {
+
+    private final Amostra amostra;
+    private final int dim;
+    private final int[] dominios;
+    private final int limiteFolha; // Nós com menos linhas do que isto guardam a lista de linhas
+    private final No raiz;
+    private int nos;               // Número de nós (estatística)
+
+    private static final class No {
+        final int count;
+        final int inicio;  // Primeira variável que este nó ainda pode especializar
+        Vary[] vary;       // vary[a - inicio]; null numa folha
+        int[] linhas;      // Só nas folhas
+
+        No(int count, int inicio) {
+            this.count = count;
+            this.inicio = inicio;
+        }
+    }
+
+    private static final class Vary {
+        int mcv;      // Valor mais comum (não tem filho)
+        No[] filhos;  // filhos[v] (null se v == mcv ou se não há linhas com v)
+    }
+
+    ADTree(Amostra amostra, int limiteFolha) {
+        this.amostra = amostra;
+        this.dim = amostra.dim();
+        this.limiteFolha = Math.max(1, limiteFolha);
+        this.dominios = new int[dim];
+        for (int v = 0; v < dim; v++) dominios[v] = amostra.domain(v);
+        int[] todas = new int[amostra.length()];
+        for (int i = 0; i < todas.length; i++) todas[i] = i;
+        this.raiz = construir(0, todas);
+    }
+
+    private No construir(int inicio, int[] linhas) {
+        nos++;
+        No no = new No(linhas.length, inicio);
+        if (linhas.length < limiteFolha || inicio >= dim) {
+            no.linhas = linhas;
+            return no;
+        }
+        no.vary = new Vary[dim - inicio];
+        for (int a = inicio; a < dim; a++) no.vary[a - inicio] = construirVary(a, linhas);
+        return no;
+    }
+
+    private Vary construirVary(int a, int[] linhas) {
+        int r = dominios[a];
+        int[] tamanhos = new int[r];
+        for (int i : linhas) tamanhos[amostra.valor(i, a)]++;
+
+        int[][] particao = new int[r][];
+        for (int v = 0; v < r; v++) particao[v] = new int[tamanhos[v]];
+        int[] pos = new int[r];
+        for (int i : linhas) {
+            int v = amostra.valor(i, a);
+            particao[v][pos[v]++] = i;
+        }
+
+        Vary vary = new Vary();
+        for (int v = 1; v < r; v++) if (tamanhos[v] > tamanhos[vary.mcv]) vary.mcv = v;
+        vary.filhos = new No[r];
+        for (int v = 0; v < r; v++) {
+            if (v != vary.mcv && tamanhos[v] > 0) vary.filhos[v] = construir(a + 1, particao[v]);
+        }
+        return vary;
+    }
+
+    // N(var[k] = val[k] para todo o k)
+    int contar(int[] var, int[] val) {
+        int m = var.length;
+        int[] vs = new int[m], xs = new int[m];
+        // Ordena os predicados por variável (inserção: são poucos) e elimina repetidos
+        int n = 0;
+        for (int k = 0; k < m; k++) {
+            if (var[k] < 0 || var[k] >= dim || val[k] < 0 || val[k] >= dominios[var[k]]) return 0;
+            int p = n;
+            while (p > 0 && vs[p - 1] > var[k]) p--;
+            if (p > 0 && vs[p - 1] == var[k]) {
+                if (xs[p - 1] != val[k]) return 0;
+                continue;
+            }
+            System.arraycopy(vs, p, vs, p + 1, n - p);
+            System.arraycopy(xs, p, xs, p + 1, n - p);
+            vs[p] = var[k];
+            xs[p] = val[k];
+            n++;
+        }
+        return contar(raiz, vs, xs, 0, n);
+    }
+
+    private int contar(No no, int[] vs, int[] xs, int p, int n) {
+        if (p == n) return no.count;
+        if (no.vary == null) return contarFolha(no.linhas, vs, xs, p, n);
+
+        Vary vary = no.vary[vs[p] - no.inicio];
+        int x = xs[p];
+        if (x != vary.mcv) {
+            No filho = vary.filhos[x];
+            return (filho == null) ? 0 : contar(filho, vs, xs, p + 1, n);
+        }
+        // Valor mais comum: N(a = mcv, resto) = N(resto) - soma dos outros valores
+        int c = contar(no, vs, xs, p + 1, n);
+        for (No filho : vary.filhos) {
+            if (filho != null) c -= contar(filho, vs, xs, p + 1, n);
+        }
+        return c;
+    }
+
+    private int contarFolha(int[] linhas, int[] vs, int[] xs, int p, int n) {
+        int c = 0;
+        for (int i : linhas) {
+            boolean match = true;
+            for (int k = p; k < n && match; k++) match = amostra.valor(i, vs[k]) == xs[k];
+            if (match) c++;
+        }
+        return c;
+    }
+
+    @Override
+    public String toString() {
+        return "ADTree[" + nos + " nós, folha < " + limiteFolha + ", domínios " + Arrays.toString(dominios) + "]";
+    }
+}
@@ -3,65 +3,272 @@ package projeto_amc;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class Amostra implements java.io.Serializable {
 
     private static final long serialVersionUID = 1L;
 
-    // Lista temporária para leitura
-    private ArrayList<int[]> bufferLeitura;
-   
-    // Acesso direto à memória (Rápido e Leve)
-    private int[][] dados;
+    // Linhas guardadas em blocos: acrescentar não obriga a copiar os dados (null no modo colunar)
+    private Linhas linhas;
+    
+    // Alternativa colunar e compacta às linhas (null quando se usam linhas)
+    private Colunas colunas;
    
     protected int[] maximos = null;
+    
+    // Cache de tabelas de contagens conjuntas (chave = conjunto ordenado de variáveis).
+    // Política LRU limitada pelo número total de células guardadas.
+    private transient LinkedHashMap<Chave, TabelaContagens> cacheTabelas;
+    private transient long celulasEmCache;
+    private int limiteCache = 1 << 22; // ~16 MB de contagens
+    
+    // A partir deste número de linhas as varreduras são divididas por intervalos num ForkJoinPool
+    private int limiteParalelo = 1 << 14;
+    private static final int FOLHA_MINIMA = 4096; // Linhas mínimas por tarefa
+    
+    // Com o índice bitmap, uma tabela com até tantas células é preenchida por ANDs em vez de uma passagem
+    // (cada célula custa N/64 palavras por variável, contra N valores por variável na passagem)
+    private static final int CELULAS_INDICE = 64;
+    
+    // Índice bitmap opcional (um bitset por variável/valor) para as contagens conjuntivas
+    private transient IndiceBitmap indice;
+    
+    // ADtree opcional: responde a qualquer conjunção sem depender do número de linhas
+    private transient ADTree adtree;
+    
+    // n·log2(n) para n em [0, N]: os termos de verosimilhança passam a ser consultas a um array
+    private transient volatile double[] nLogN;
+    
+    // Linhas acrescentadas desde a criação: as vistas (AmostraVista) guardam o valor e deixam de
+    // poder ser usadas quando muda
+    int modificacoes;
    
     public Amostra() {
-        this.bufferLeitura = new ArrayList<>();
+        this.linhas = new Linhas();
     }
     
     public Amostra(String csvFile) {
+        this(csvFile, false);
+    }
+    
+    // Sem armazenamento próprio: as vistas (AmostraVista) leem as linhas de outra amostra
+    Amostra(int[] maximos) {
+        this.maximos = maximos;
+    }
+    
+    // Amostra colunar já construída (leitura do formato binário)
+    Amostra(int[] maximos, Colunas colunas) {
+        this.maximos = maximos;
+        this.colunas = colunas;
+    }
+    
+    // Lê um CSV ou uma amostra binária (.amb), consoante a extensão. Ao contrário dos construtores,
+    // os erros de leitura (IOException) e de formato (NumberFormatException) chegam ao chamador.
+    public static Amostra carregar(String ficheiro) throws IOException {
+        return carregar(ficheiro, false);
+    }
+    
+    public static Amostra carregar(String ficheiro, boolean colunar) throws IOException {
+        return carregar(ficheiro, colunar, false);
+    }
+    
+    // indice = true constrói logo o índice bitmap (criarIndice) depois de ler os dados
+    public static Amostra carregar(String ficheiro, boolean colunar, boolean indice) throws IOException {
+        Amostra a;
+        if (ficheiro.endsWith(FormatoBinario.EXTENSAO)) {
+            a = FormatoBinario.ler(ficheiro);
+        } else {
+            a = new Amostra();
+            a.ler(ficheiro, colunar);
+        }
+        if (indice && a.dim() > 0) a.criarIndice();
+        return a;
+    }
+    
+    // colunar = true guarda os dados por colunas de largura mínima (byte/short) em vez de linhas int[].
+    // Como no construtor original, um erro é impresso e a amostra fica vazia (nunca a meio).
+    public Amostra(String csvFile, boolean colunar) {
         this();
-        BufferedReader br = null;
         try {
-            br = new BufferedReader(new FileReader(csvFile));
+            ler(csvFile, colunar);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            linhas = new Linhas();
+            colunas = null;
+            maximos = null;
+        }
+    }
+    
+    private void ler(String csvFile, boolean colunar) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(csvFile), StandardOpenOption.READ)) {
+            if (ch.size() <= Integer.MAX_VALUE) {
+                lerMapeado(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()), colunar);
+                return;
+            }
+        }
+        lerTexto(csvFile, colunar); // Ficheiros > 2 GB não cabem num só MappedByteBuffer
+    }
+    
+    // Leitura linha a linha (String por linha e por valor)
+    private void lerTexto(String csvFile, boolean colunar) throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
             String line;
+            int numLinha = 0;
             while ((line = br.readLine()) != null) {
+                numLinha++;
                 if (line.trim().isEmpty()) continue;
-                add(convert(line));
+                int[] v = convert(line);
+                for (int x : v) if (x < 0) throw negativo(numLinha);
+                add(v);
             }
-            finalizarLeitura(); // Converte para matriz fixa
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            if (br != null) try { br.close(); } catch (IOException e) {}
+            if (colunar) compactar();
         }
     }
     
-    private void finalizarLeitura() {
-        if (bufferLeitura != null && !bufferLeitura.isEmpty()) {
-            dados = new int[bufferLeitura.size()][];
-            bufferLeitura.toArray(dados);
-            bufferLeitura = null;
+    // Leitura do ficheiro mapeado em memória, sem objetos intermédios por linha ou valor.
+    // 1ª passagem: conta linhas e calcula os máximos; 2ª passagem: preenche as linhas/colunas já dimensionadas.
+    private void lerMapeado(MappedByteBuffer buf, boolean colunar) throws IOException {
+        int dim = contarColunas(buf);
+        if (dim == 0) return; // Ficheiro vazio
+        
+        int[] linha = new int[dim];
+        maximos = new int[dim];
+        Arrays.fill(maximos, Integer.MIN_VALUE);
+        int N = percorrer(buf, linha, null, null);
+        
+        if (colunar) {
+            colunas = new Colunas(dim, maximos, N);
+            percorrer(buf, linha, null, colunas);
+            linhas = null;
+        } else {
+            linhas = new Linhas(N);
+            percorrer(buf, linha, linhas, null);
         }
     }
     
-    public Amostra amostraSem(int index) {
-        Amostra nova = new Amostra();
-       
-        if (this.dados == null && this.bufferLeitura != null) finalizarLeitura();
-        if (this.maximos != null) nova.maximos = this.maximos.clone();
-        int N = this.length();
-        nova.dados = new int[N - 1][];
-        if (index > 0) {
-            System.arraycopy(this.dados, 0, nova.dados, 0, index);
+    // Número de valores da primeira linha não vazia
+    private static int contarColunas(MappedByteBuffer buf) {
+        int dim = 0;
+        boolean temDigito = false;
+        for (int pos = 0; pos < buf.limit(); pos++) {
+            byte b = buf.get(pos);
+            if (b >= '0' && b <= '9') temDigito = true;
+            else if (b == ',') dim++;
+            else if (b == '\n') {
+                if (temDigito || dim > 0) return dim + 1;
+            }
         }
-        if (index < N - 1) {
-            System.arraycopy(this.dados, index + 1, nova.dados, index, N - index - 1);
+        return (temDigito || dim > 0) ? dim + 1 : 0;
+    }
+    
+    // Os valores são índices 0..máximo das contagens (e do índice bitmap): um negativo não tem onde ser contado
+    private static IOException negativo(int numLinha) {
+        return new IOException("Linha " + numLinha + ": valor negativo (os valores têm de ser 0, 1, 2, ...)");
+    }
+    
+    // Percorre todas as linhas do ficheiro. Sem destino, só atualiza os máximos; devolve o número de linhas.
+    private int percorrer(MappedByteBuffer buf, int[] linha, Linhas destinoLinhas, Colunas destinoColunas) throws IOException {
+        int dim = linha.length;
+        int lim = buf.limit();
+        int pos = 0, N = 0, numLinha = 0;
+        while (pos < lim) {
+            numLinha++;
+            int col = 0, val = 0;
+            boolean temDigito = false, vazia = true, espaco = false;
+            int[] alvo = (destinoLinhas != null) ? new int[dim] : linha;
+            while (pos < lim) {
+                byte b = buf.get(pos++);
+                if (b >= '0' && b <= '9') {
+                    // Como Integer.parseInt(trim()): "4 5" não é um número
+                    if (espaco) throw new NumberFormatException("Linha " + numLinha + ": espaço dentro de um valor");
+                    val = val * 10 + (b - '0');
+                    temDigito = true;
+                    vazia = false;
+                } else if (b == ',' || b == '\n') {
+                    if (b == '\n' && vazia && col == 0) break; // Linha vazia
+                    if (!temDigito || col >= dim) throw new NumberFormatException("Linha " + numLinha + " mal formada");
+                    alvo[col++] = val;
+                    val = 0;
+                    temDigito = false;
+                    espaco = false;
+                    vazia = false;
+                    if (b == '\n') break;
+                } else if (b == '-' && !temDigito) {
+                    throw negativo(numLinha);
+                } else if (b == ' ' || b == '\t' || b == '\r') {
+                    if (temDigito) espaco = true;
+                } else {
+                    throw new NumberFormatException("Linha " + numLinha + ": caráter inesperado '" + (char) b + "'");
+                }
+            }
+            if (pos >= lim && temDigito) { // Última linha sem '\n'
+                if (col >= dim) throw new NumberFormatException("Linha " + numLinha + " mal formada");
+                alvo[col++] = val;
+            }
+            if (col == 0) continue;
+            if (col != dim) throw new NumberFormatException("Linha " + numLinha + ": esperados " + dim + " valores");
+            
+            if (destinoLinhas == null && destinoColunas == null) {
+                for (int k = 0; k < dim; k++) if (maximos[k] < alvo[k]) maximos[k] = alvo[k];
+            } else if (destinoColunas != null) {
+                destinoColunas.add(alvo);
+            } else {
+                destinoLinhas.add(alvo);
+            }
+            N++;
         }
-        return nova;
+        return N;
+    }
+    
+    // Passa os dados para o armazenamento colunar (1 ou 2 bytes por célula na maioria dos datasets)
+    public void compactar() {
+        if (colunas != null || maximos == null) return;
+        colunas = paraColunas();
+        linhas = null;
+    }
+    
+    // Grava a amostra no formato binário (cabeçalho + colunas compactas), que se lê sem voltar a interpretar texto
+    public void gravarBinario(String ficheiro) throws IOException {
+        FormatoBinario.gravar(ficheiro, maximos, colunas != null ? colunas : paraColunas());
+    }
+    
+    private Colunas paraColunas() {
+        Colunas c = new Colunas(maximos.length, maximos, length());
+        for (int i = 0; i < length(); i++) c.add(element(i));
+        return c;
+    }
+    
+    public boolean isColunar() {
+        return colunas != null;
+    }
+    
+    // Vista sem a linha 'index', criada em O(1) (não copia os dados). Mudança de contrato: antes devolvia
+    // uma cópia independente, à qual se podiam acrescentar linhas; a vista rejeita add e compactar
+    // (UnsupportedOperationException) e, se forem acrescentadas linhas a esta amostra, deixa de poder
+    // ser usada (ConcurrentModificationException). Para uma cópia: new Amostra() e add de cada element.
+    public Amostra amostraSem(int index) {
+        return new AmostraVista.Exclusao(this, index);
+    }
+    
+    // Vista com as linhas indicadas (podem repetir-se, p.ex. bootstrap). O array não é copiado.
+    public Amostra subconjunto(int[] indices) {
+        return new AmostraVista.Subconjunto(this, indices);
+    }
+    
+    // Vista da dobra 'f' de 'k' (linhas i com i % k == f): de teste, ou o complemento se 'treino'
+    public Amostra dobra(int k, int f, boolean treino) {
+        return new AmostraVista.Dobra(this, k, f, treino);
     }
     
     static int[] convert(String line) {
@@ -73,15 +280,8 @@ public class Amostra implements java.io.Serializable {
         return vec;
     }
     
+    // Acrescenta uma linha em O(1) amortizado; máximos, índice e tabelas em cache são atualizados no lugar
     public void add(int[] v) {
-        if (dados != null) {
-            if (bufferLeitura == null) {
-                bufferLeitura = new ArrayList<>();
-                for(int[] row : dados) bufferLeitura.add(row);
-            }
-            dados = null;
-        }
-        if (bufferLeitura == null) bufferLeitura = new ArrayList<>();
         if (maximos == null) {
             maximos = new int[v.length];
             System.arraycopy(v, 0, maximos, 0, v.length);
@@ -89,12 +289,43 @@ public class Amostra implements java.io.Serializable {
             for (int i = 0; i < maximos.length; i++)
                 if (maximos[i] < v[i]) maximos[i] = v[i];
         }
-        bufferLeitura.add(v);
+        if (colunas != null) colunas.add(v);
+        else linhas.add(v);
+        if (indice != null) indice.add(v);
+        adtree = null; // A ADtree é construída uma vez; uma linha nova invalida-a
+        modificacoes++;
+        atualizarCache(v);
     }
     
     public int length() {
-        if (dados != null) return dados.length;
-        return bufferLeitura.size();
+        if (colunas != null) return colunas.length();
+        return linhas.length();
+    }
+    
+    // Valor de uma variável numa linha, sem reconstruir a linha no modo colunar
+    int valor(int linha, int var) {
+        if (colunas != null) return colunas.valor(linha, var);
+        return linhas.get(linha)[var];
+    }
+    
+    // Tabela n·log2(n), n em [0, length()], com 0·log2(0) = 0. Refeita quando a amostra cresce.
+    // A tabela devolvida é partilhada: não deve ser alterada.
+    double[] tabelaNLogN() {
+        double[] t = nLogN;
+        int N = length();
+        if (t == null || t.length != N + 1) {
+            t = new double[N + 1];
+            double ln2 = Math.log(2);
+            for (int n = 1; n <= N; n++) t[n] = n * (Math.log(n) / ln2);
+            nLogN = t;
+        }
+        return t;
+    }
+    
+    // log2(N), p.ex. para a penalização MDL
+    double log2Tamanho() {
+        int N = length();
+        return (N == 0) ? Double.NEGATIVE_INFINITY : tabelaNLogN()[N] / N;
     }
     
     public int dim() {
@@ -102,65 +333,352 @@ public class Amostra implements java.io.Serializable {
         return maximos.length;
     }
     
+    // No modo colunar a linha é reconstruída (cópia)
     public int[] element(int i) {
-        if (dados != null) return dados[i];
-        return bufferLeitura.get(i);
+        if (colunas != null) return colunas.linha(i);
+        return linhas.get(i);
     }
     
+    // Com uma ADtree as contagens são consultas à árvore; com o índice bitmap ativo são ANDs de bitsets;
+    // caso contrário são respondidas a partir da tabela conjunta das variáveis pedidas, construída numa só
+    // passagem pelos dados e guardada em cache.
     public int count(int[] var, int[] val) {
-        if (dados == null) finalizarLeitura();
-        int r = 0;
-        int rows = dados.length;
-        int numVars = var.length;
-        for (int j = 0; j < rows; j++) {
-            int[] linha = dados[j];
-            boolean match = true;
-            for (int k = 0; k < numVars; k++) {
-                if (linha[var[k]] != val[k]) {
-                    match = false;
-                    break;
+        if (adtree != null) return adtree.contar(var, val);
+        if (indice != null) return indice.contar(var, val);
+        TabelaContagens t = tabela(var, false);
+        if (t == null) return contarVarrimento(var, val);
+        return t.contagem(var, val);
+    }
+    
+    // Overloads
+    public int count(int var, int val) {
+        return count(new int[] {var}, new int[] {val});
+    }
+    
+    public int count(int var1, int var2, int val1, int val2) {
+        return count(new int[] {var1, var2}, new int[] {val1, val2});
+    }
+    
+    public int count(int var1, int var2, int var3, int val1, int val2, int val3){
+        return count(new int[] {var1, var2, var3}, new int[] {val1, val2, val3});
+    }
+    
+    public int count(int var1, int var2, int var3, int var4, int val1, int val2, int val3, int val4){
+        return count(new int[] {var1, var2, var3, var4}, new int[] {val1, val2, val3, val4});
+    }
+    
+    // Tabela de contagens conjuntas das variáveis pedidas, com a primeira variável a variar mais depressa.
+    // Variáveis repetidas são permitidas (as células com valores diferentes para a mesma variável ficam a 0).
+    // O array devolvido pode ser partilhado com a cache: não deve ser alterado.
+    public int[] contagens(int[] vars) {
+        TabelaContagens t = tabela(vars, true);
+        
+        boolean ordenadas = t.vars.length == vars.length;
+        for (int k = 0; ordenadas && k < vars.length; k++) if (vars[k] != t.vars[k]) ordenadas = false;
+        if (ordenadas) return t.contagens;
+        
+        // Reordena a tabela para a ordem pedida
+        int[] dims = new int[vars.length];
+        int[] pos = new int[vars.length];
+        int tamanho = 1;
+        for (int k = 0; k < vars.length; k++) {
+            dims[k] = domain(vars[k]);
+            pos[k] = t.posicao(vars[k]);
+            tamanho *= dims[k];
+        }
+        int[] r = new int[tamanho];
+        int[] digitos = new int[vars.length];
+        int[] fixo = new int[t.vars.length];
+        for (int c = 0; c < tamanho; c++) {
+            Arrays.fill(fixo, -1);
+            int idx = 0;
+            boolean coerente = true;
+            for (int k = 0; k < vars.length && coerente; k++) {
+                int p = pos[k];
+                if (fixo[p] < 0) {
+                    fixo[p] = digitos[k];
+                    idx += digitos[k] * t.strides[p];
+                } else if (fixo[p] != digitos[k]) {
+                    coerente = false;
                 }
             }
-            if (match) r++;
+            if (coerente) r[c] = t.contagens[idx];
+            // Próxima célula (contador em base mista)
+            for (int k = 0; k < vars.length && ++digitos[k] == dims[k]; k++) digitos[k] = 0;
         }
         return r;
     }
     
-    // Overloads
-    public int count(int var, int val) {
-        if (dados == null) finalizarLeitura();
-        int r = 0;
-        for (int[] linha : dados) {
-            if (linha[var] == val) r++;
+    // Constrói o índice bitmap (cerca de N/8 bytes por valor de cada variável)
+    public void criarIndice() {
+        indice = new IndiceBitmap(this);
+    }
+    
+    public void removerIndice() {
+        indice = null;
+    }
+    
+    public boolean temIndice() {
+        return indice != null;
+    }
+    
+    // Constrói a ADtree; nós com menos de 'limiteFolha' linhas guardam a lista de linhas
+    public void criarADTree(int limiteFolha) {
+        adtree = new ADTree(this, limiteFolha);
+    }
+    
+    public void criarADTree() {
+        criarADTree(64); // Em satimage, 16 gasta ~6x mais memória para consultas pouco mais rápidas
+    }
+    
+    public void removerADTree() {
+        adtree = null;
+    }
+    
+    public boolean temADTree() {
+        return adtree != null;
+    }
+    
+    // Limite (em células) da cache de tabelas; 0 desliga a cache
+    public void setLimiteCache(int celulas) {
+        this.limiteCache = celulas;
+        limparCache();
+    }
+    
+    // Conta a nova linha nas tabelas em cache; as que deixam de ter o domínio certo são descartadas
+    private void atualizarCache(int[] v) {
+        if (cacheTabelas == null) return;
+        synchronized (cacheTabelas) {
+            Iterator<TabelaContagens> it = cacheTabelas.values().iterator();
+            while (it.hasNext()) {
+                TabelaContagens t = it.next();
+                boolean cabe = true;
+                for (int k = 0; k < t.vars.length && cabe; k++) cabe = v[t.vars[k]] >= 0 && v[t.vars[k]] < t.dims[k];
+                if (cabe) {
+                    t.adicionar(v);
+                } else {
+                    celulasEmCache -= t.tamanho();
+                    it.remove();
+                }
+            }
         }
-        return r;
     }
     
-    public int count(int var1, int var2, int val1, int val2) {
-        if (dados == null) finalizarLeitura();
-        int r = 0;
-        for (int[] linha : dados) {
-            if (linha[var1] == val1 && linha[var2] == val2) r++;
+    public void limparCache() {
+        if (cacheTabelas == null) return;
+        synchronized (cacheTabelas) {
+            cacheTabelas.clear();
+            celulasEmCache = 0;
         }
-        return r;
     }
     
-    public int count(int var1, int var2, int var3, int val1, int val2, int val3){
-        if (dados == null) finalizarLeitura();
-        int r = 0;
-        for (int[] linha : dados) {
-            if (linha[var1] == val1 && linha[var2] == val2 && linha[var3] == val3) r++;
+    // Obtém (da cache, por marginalização de uma tabela maior, ou numa passagem pelos dados)
+    // a tabela conjunta das variáveis. Se a tabela não couber na cache devolve null ou,
+    // quando 'obrigatoria', constrói-a sem a guardar.
+    TabelaContagens tabela(int[] var, boolean obrigatoria) {
+        Chave chave = new Chave(var);
+        long tamanho = 1;
+        for (int v : chave.vars) tamanho *= domain(v);
+        if (tamanho > limiteCache) {
+            if (!obrigatoria) return null;
+            if (tamanho > Integer.MAX_VALUE) throw new IllegalArgumentException("Tabela demasiado grande: " + Arrays.toString(var));
+            return construir(chave.vars);
         }
-        return r;
+        
+        LinkedHashMap<Chave, TabelaContagens> cache = cache();
+        TabelaContagens maior = null;
+        synchronized (cache) {
+            TabelaContagens t = cache.get(chave);
+            if (t != null) return t;
+            // Uma tabela em cache que contenha estas variáveis pode ser somada em vez de varrer os dados
+            for (Map.Entry<Chave, TabelaContagens> e : cache.entrySet()) {
+                TabelaContagens c = e.getValue();
+                if (e.getKey().contem(chave) && c.tamanho() < length() && (maior == null || c.tamanho() < maior.tamanho())) {
+                    maior = c;
+                }
+            }
+        }
+        
+        TabelaContagens t = (maior != null) ? maior.marginal(chave.vars) : construir(chave.vars);
+        
+        synchronized (cache) {
+            TabelaContagens existente = cache.get(chave);
+            if (existente != null) return existente; // Outra thread construiu a mesma tabela
+            cache.put(chave, t);
+            celulasEmCache += t.tamanho();
+            Iterator<TabelaContagens> it = cache.values().iterator();
+            while (celulasEmCache > limiteCache && it.hasNext()) {
+                TabelaContagens velha = it.next();
+                if (velha == t) continue;
+                celulasEmCache -= velha.tamanho();
+                it.remove();
+            }
+        }
+        return t;
     }
     
-    public int count(int var1, int var2, int var3, int var4, int val1, int val2, int val3, int val4){
-        if (dados == null) finalizarLeitura();
-        int r = 0;
-        for (int[] linha : dados) {
-            if (linha[var1] == val1 && linha[var2] == val2 && linha[var3] == val3 && linha[var4] == val4) r++;
+    // Uma passagem pelos dados (por colunas, se for o caso), ou consultas à ADtree (tabelas com menos
+    // células do que linhas) ou ao índice (tabelas pequenas)
+    TabelaContagens construir(int[] vars) {
+        int[] dims = new int[vars.length];
+        for (int k = 0; k < dims.length; k++) dims[k] = domain(vars[k]);
+        TabelaContagens t = new TabelaContagens(vars, dims);
+        if ((adtree != null && t.tamanho() <= length()) || (indice != null && t.tamanho() <= CELULAS_INDICE)) {
+            preencherPorConsultas(t);
+            return t;
+        }
+        int N = length();
+        int folha = folhaParalela(N);
+        // Cada tarefa tem a sua tabela parcial: só compensa se a tabela for pequena face ao intervalo
+        if (folha > 0 && t.tamanho() <= folha) {
+            int[] r = ForkJoinPool.commonPool().invoke(new PreencherTabela(t, 0, N, folha));
+            System.arraycopy(r, 0, t.contagens, 0, r.length);
+        } else {
+            preencher(t, 0, N);
+        }
+        return t;
+    }
+    
+    // Cada célula da tabela (primeira variável a variar mais depressa) é uma contagem conjuntiva
+    private void preencherPorConsultas(TabelaContagens t) {
+        int[] vars = t.vars, dims = t.dims;
+        int[] val = new int[vars.length];
+        for (int c = 0; c < t.contagens.length; c++) {
+            t.contagens[c] = (adtree != null) ? adtree.contar(vars, val) : indice.contar(vars, val);
+            for (int k = 0; k < val.length && ++val[k] == dims[k]; k++) val[k] = 0;
+        }
+    }
+    
+    void preencher(TabelaContagens t, int inicio, int fim) {
+        if (colunas != null) colunas.preencher(t, inicio, fim);
+        else linhas.preencher(t, inicio, fim);
+    }
+    
+    // Linhas por tarefa na contagem paralela, ou 0 se a contagem deve ser sequencial
+    private int folhaParalela(int N) {
+        int paralelismo = ForkJoinPool.getCommonPoolParallelism();
+        if (N < limiteParalelo || paralelismo < 2) return 0;
+        return Math.max(FOLHA_MINIMA, N / (4 * paralelismo));
+    }
+    
+    // Número mínimo de linhas para contar em paralelo (Integer.MAX_VALUE desliga)
+    public void setLimiteParalelo(int linhas) {
+        this.limiteParalelo = linhas;
+    }
+    
+    // Preenche tabelas parciais por intervalos de linhas e soma-as ao juntar
+    private final class PreencherTabela extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+        private final TabelaContagens modelo;
+        private final int inicio, fim, folha;
+        
+        PreencherTabela(TabelaContagens modelo, int inicio, int fim, int folha) {
+            this.modelo = modelo;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.folha = folha;
+        }
+        
+        @Override
+        protected int[] compute() {
+            if (fim - inicio <= folha) {
+                TabelaContagens parcial = new TabelaContagens(modelo.vars, modelo.dims);
+                preencher(parcial, inicio, fim);
+                return parcial.contagens;
+            }
+            int meio = (inicio + fim) >>> 1;
+            PreencherTabela esquerda = new PreencherTabela(modelo, inicio, meio, folha);
+            esquerda.fork();
+            int[] r = new PreencherTabela(modelo, meio, fim, folha).compute();
+            int[] l = esquerda.join();
+            for (int c = 0; c < r.length; c++) r[c] += l[c];
+            return r;
+        }
+    }
+    
+    // Conta as linhas que satisfazem a conjunção, por intervalos de linhas
+    private final class ContarIntervalo extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int[] var, val;
+        private final int inicio, fim, folha;
+        
+        ContarIntervalo(int[] var, int[] val, int inicio, int fim, int folha) {
+            this.var = var;
+            this.val = val;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.folha = folha;
+        }
+        
+        @Override
+        protected Integer compute() {
+            if (fim - inicio <= folha) return contarVarrimento(var, val, inicio, fim);
+            int meio = (inicio + fim) >>> 1;
+            ContarIntervalo esquerda = new ContarIntervalo(var, val, inicio, meio, folha);
+            esquerda.fork();
+            int r = new ContarIntervalo(var, val, meio, fim, folha).compute();
+            return r + esquerda.join();
+        }
+    }
+    
+    private LinkedHashMap<Chave, TabelaContagens> cache() {
+        LinkedHashMap<Chave, TabelaContagens> c = cacheTabelas;
+        if (c == null) {
+            synchronized (this) {
+                if (cacheTabelas == null) cacheTabelas = new LinkedHashMap<>(64, 0.75f, true); // Ordem de acesso (LRU)
+                c = cacheTabelas;
+            }
+        }
+        return c;
+    }
+    
+    // Varredura direta dos dados (usada quando a tabela conjunta seria demasiado grande)
+    private int contarVarrimento(int[] var, int[] val) {
+        int N = length();
+        int folha = folhaParalela(N);
+        if (folha > 0) return ForkJoinPool.commonPool().invoke(new ContarIntervalo(var, val, 0, N, folha));
+        return contarVarrimento(var, val, 0, N);
+    }
+    
+    int contarVarrimento(int[] var, int[] val, int inicio, int fim) {
+        if (colunas != null) return colunas.contar(var, val, inicio, fim);
+        return linhas.contar(var, val, inicio, fim);
+    }
+    
+    // Chave da cache: conjunto de variáveis ordenado e sem repetições
+    private static final class Chave {
+        final int[] vars;
+        final int hash;
+        
+        Chave(int[] var) {
+            int[] v = var.clone();
+            Arrays.sort(v);
+            int m = 0;
+            for (int k = 0; k < v.length; k++) {
+                if (k == 0 || v[k] != v[k - 1]) v[m++] = v[k];
+            }
+            this.vars = (m == v.length) ? v : Arrays.copyOf(v, m);
+            this.hash = Arrays.hashCode(vars);
+        }
+        
+        // Verifica se todas as variáveis de 'outra' estão nesta chave
+        boolean contem(Chave outra) {
+            int j = 0;
+            for (int k = 0; k < vars.length && j < outra.vars.length; k++) {
+                if (vars[k] == outra.vars[j]) j++;
+            }
+            return j == outra.vars.length;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Chave && Arrays.equals(vars, ((Chave) o).vars);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
         }
-        return r;
     }
     
     public int domain(int var[]) {
@@ -181,6 +699,6 @@ public class Amostra implements java.io.Serializable {
    
     @Override
     public String toString() {
-        return "Amostra (Sem Cache) com " + length() + " elementos.";
+        return "Amostra com " + length() + " elementos.";
     }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package projeto_amc;
+
+import java.util.ConcurrentModificationException;
+
+// Vistas sobre outra amostra: mapeiam índices de linha para a amostra base sem copiar dados,
+// por isso criar uma divisão (leave-one-out, k-fold, bootstrap) custa O(1).
+// Os domínios (maximos) e as tabelas em cache são os da base no momento da criação da vista: se forem
+// acrescentadas linhas à base, a vista deixa de poder ser usada (como um Iterator de uma coleção alterada).
+abstract class AmostraVista extends Amostra {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final Amostra base;
+    private final int modificacoesBase;
+
+    AmostraVista(Amostra base) {
+        super(base.maximos.clone());
+        this.base = base;
+        this.modificacoesBase = base.modificacoes;
+    }
+
+    // Índice na amostra base da linha i da vista
+    abstract int linhaBase(int i);
+
+    // Número de linhas da vista
+    abstract int numLinhas();
+
+    private void verificar() {
+        if (base.modificacoes != modificacoesBase) {
+            throw new ConcurrentModificationException("A amostra base mudou depois de criada a vista");
+        }
+    }
+
+    @Override
+    public final int length() {
+        verificar();
+        return numLinhas();
+    }
+
+    @Override
+    public int[] element(int i) {
+        verificar();
+        return base.element(linhaBase(i));
+    }
+
+    @Override
+    public int count(int[] var, int[] val) {
+        verificar();
+        return super.count(var, val);
+    }
+
+    @Override
+    TabelaContagens tabela(int[] var, boolean obrigatoria) {
+        verificar(); // As tabelas em cache também são da base antiga
+        return super.tabela(var, obrigatoria);
+    }
+
+    @Override
+    int valor(int linha, int var) {
+        return base.valor(linhaBase(linha), var);
+    }
+
+    @Override
+    public void add(int[] v) {
+        throw new UnsupportedOperationException("Não é possível acrescentar linhas a uma vista");
+    }
+
+    @Override
+    public void compactar() {
+        throw new UnsupportedOperationException("Não é possível compactar uma vista");
+    }
+
+    @Override
+    void preencher(TabelaContagens t, int inicio, int fim) {
+        int[] vars = t.vars, strides = t.strides;
+        for (int i = inicio; i < fim; i++) {
+            int j = linhaBase(i);
+            int idx = 0;
+            for (int k = 0; k < vars.length; k++) idx += base.valor(j, vars[k]) * strides[k];
+            t.contagens[idx]++;
+        }
+    }
+
+    @Override
+    int contarVarrimento(int[] var, int[] val, int inicio, int fim) {
+        int r = 0;
+        for (int i = inicio; i < fim; i++) {
+            int j = linhaBase(i);
+            boolean match = true;
+            for (int k = 0; k < var.length && match; k++) match = base.valor(j, var[k]) == val[k];
+            if (match) r++;
+        }
+        return r;
+    }
+
+    // Amostra base sem uma linha (leave-one-out)
+    static final class Exclusao extends AmostraVista {
+        private static final long serialVersionUID = 1L;
+        private final int index;
+
+        Exclusao(Amostra base, int index) {
+            super(base);
+            if (index < 0 || index >= base.length()) throw new IndexOutOfBoundsException("Linha " + index);
+            this.index = index;
+        }
+
+        @Override
+        int numLinhas() {
+            return base.length() - 1;
+        }
+
+        @Override
+        int linhaBase(int i) {
+            return (i < index) ? i : i + 1;
+        }
+
+        // A tabela da base (em geral já em cache) menos a linha excluída: O(tamanho da tabela) em vez de O(N)
+        @Override
+        TabelaContagens construir(int[] vars) {
+            TabelaContagens b = base.tabela(vars, true);
+            boolean mesmosDominios = true;
+            for (int k = 0; k < vars.length; k++) if (b.dims[k] != domain(vars[k])) mesmosDominios = false;
+            if (!mesmosDominios) return super.construir(vars);
+
+            TabelaContagens t = new TabelaContagens(b.vars, b.dims);
+            System.arraycopy(b.contagens, 0, t.contagens, 0, b.contagens.length);
+            int idx = 0;
+            for (int k = 0; k < vars.length; k++) idx += base.valor(index, vars[k]) * t.strides[k];
+            t.contagens[idx]--;
+            return t;
+        }
+    }
+
+    // Linhas escolhidas por índice (com ou sem repetição)
+    static final class Subconjunto extends AmostraVista {
+        private static final long serialVersionUID = 1L;
+        private final int[] indices;
+
+        Subconjunto(Amostra base, int[] indices) {
+            super(base);
+            this.indices = indices;
+        }
+
+        @Override
+        int numLinhas() {
+            return indices.length;
+        }
+
+        @Override
+        int linhaBase(int i) {
+            return indices[i];
+        }
+    }
+
+    // Dobra f de k: as linhas i com i % k == f (teste) ou todas as outras (treino)
+    static final class Dobra extends AmostraVista {
+        private static final long serialVersionUID = 1L;
+        private final int k, f;
+        private final boolean treino;
+
+        Dobra(Amostra base, int k, int f, boolean treino) {
+            super(base);
+            if (k < 2 || f < 0 || f >= k) throw new IllegalArgumentException("Dobra " + f + " de " + k);
+            this.k = k;
+            this.f = f;
+            this.treino = treino;
+        }
+
+        private int linhasTeste() {
+            int N = base.length();
+            return (N > f) ? (N - f + k - 1) / k : 0;
+        }
+
+        @Override
+        int numLinhas() {
+            return treino ? base.length() - linhasTeste() : linhasTeste();
+        }
+
+        @Override
+        int linhaBase(int i) {
+            if (!treino) return i * k + f;
+            // Em cada grupo de k linhas consecutivas, k - 1 são de treino
+            int q = i / (k - 1), r = i % (k - 1);
+            return q * k + (r < f ? r : r + 1);
+        }
+    }
+}
@@ -2,21 +2,19 @@ package projeto_amc;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.FileOutputStream;
-import java.io.ObjectOutputStream;
-import java.util.LinkedList;
 import java.util.Random;
 
 
-//Aplicação 1: Lê a amostra, aprende a rede e grava-a
+//Aplicação 1: Lê a amostra, aprende a rede e grava-a (interface gráfica sobre Aprendizagem)
 
 
 public class App1_Aprendizagem extends JFrame {
 
     private static final long serialVersionUID = 1L;
 
-    private JComboBox<String> datasetCombo;
-    private JTextField kField, restartsField;
+    private JComboBox<String> datasetCombo, scoreCombo, searchCombo;
+    private JTextField kField, restartsField, seedField, timeField, candidatesField;
+    private JCheckBox tanCheck;
     private JTextArea logArea;
     private JButton learnButton;
     private JProgressBar progressBar;
@@ -44,13 +42,14 @@ public class App1_Aprendizagem extends JFrame {
         Font titleFont = new Font("SansSerif", Font.BOLD, 14);
 
         // Painel de configuração (sem o botão)
-        configPanel = new JPanel(new GridLayout(3, 2, 10, 10));
+        configPanel = new JPanel(new GridLayout(9, 2, 10, 10));
         updateConfigBorder(COLOR_YELLOW); // Começa amarelo
         
         JLabel datasetLabel = new JLabel("Dataset:");
         datasetLabel.setFont(largerFont);
         configPanel.add(datasetLabel);
         datasetCombo = new JComboBox<>(datasets);
+        datasetCombo.setEditable(true); // Permite indicar outro ficheiro, p.ex. uma amostra binária (.amb)
         datasetCombo.setFont(largerFont);
         configPanel.add(datasetCombo);
 
@@ -68,6 +67,48 @@ public class App1_Aprendizagem extends JFrame {
         restartsField.setFont(largerFont);
         configPanel.add(restartsField);
 
+        JLabel scoreLabel = new JLabel("Função de score:");
+        scoreLabel.setFont(largerFont);
+        configPanel.add(scoreLabel);
+        scoreCombo = new JComboBox<>(Score.NOMES);
+        scoreCombo.setFont(largerFont);
+        configPanel.add(scoreCombo);
+
+        JLabel seedLabel = new JLabel("Semente (vazio = aleatória):");
+        seedLabel.setFont(largerFont);
+        configPanel.add(seedLabel);
+        seedField = new JTextField("", 5);
+        seedField.setFont(largerFont);
+        configPanel.add(seedField);
+
+        JLabel searchLabel = new JLabel("Estratégia de pesquisa:");
+        searchLabel.setFont(largerFont);
+        configPanel.add(searchLabel);
+        searchCombo = new JComboBox<>(PesquisaLocal.ESTRATEGIAS);
+        searchCombo.setFont(largerFont);
+        configPanel.add(searchCombo);
+
+        JLabel timeLabel = new JLabel("Tempo limite em segundos (vazio = sem limite):");
+        timeLabel.setFont(largerFont);
+        configPanel.add(timeLabel);
+        timeField = new JTextField("", 5);
+        timeField.setFont(largerFont);
+        configPanel.add(timeField);
+
+        JLabel startLabel = new JLabel("Primeiro restart:");
+        startLabel.setFont(largerFont);
+        configPanel.add(startLabel);
+        tanCheck = new JCheckBox("Começar da árvore TAN (Chow-Liu)");
+        tanCheck.setFont(largerFont);
+        configPanel.add(tanCheck);
+
+        JLabel candidatesLabel = new JLabel("Pais candidatos por nó (vazio = todos):");
+        candidatesLabel.setFont(largerFont);
+        configPanel.add(candidatesLabel);
+        candidatesField = new JTextField("", 5);
+        candidatesField.setFont(largerFont);
+        configPanel.add(candidatesField);
+
         // Área de Log
         logArea = new JTextArea();
         logArea.setEditable(false);
@@ -123,42 +164,75 @@ public class App1_Aprendizagem extends JFrame {
                 
                 String dataset = (String) datasetCombo.getSelectedItem();
                 
-                // Validação e Ajuste de K (pode ser 0, 1 ou 2)
+                // Validação de K (número máximo de pais além da classe)
                 int k = Integer.parseInt(kField.getText().trim());
-                if (k < 0 || k > 2) {
-                    k = 2;
-                    SwingUtilities.invokeLater(() -> kField.setText("2")); 
-                    log(">>> AVISO: K ajustado para 2 (deve ser 0, 1 ou 2).");
-                }
+                if (k < 0) throw new IllegalArgumentException("Parâmetros inválidos.");
 
                 int restarts = Integer.parseInt(restartsField.getText().trim());
                 if (restarts < 1) throw new IllegalArgumentException("Parâmetros inválidos.");
 
+                // Semente mestra: com a mesma semente obtém-se a mesma rede
+                String seedText = seedField.getText().trim();
+                long seed = seedText.isEmpty() ? new Random().nextLong() : Long.parseLong(seedText);
+
+                String search = (String) searchCombo.getSelectedItem();
+                String timeText = timeField.getText().trim();
+                double seconds = timeText.isEmpty() ? 0 : Double.parseDouble(timeText);
+                if (seconds < 0) throw new IllegalArgumentException("Parâmetros inválidos.");
+
+                // Sparse candidate: reestimados quando a pesquisa para
+                String candidatesText = candidatesField.getText().trim();
+                int candidates = candidatesText.isEmpty() ? 0 : Integer.parseInt(candidatesText);
+                if (candidates < 0) throw new IllegalArgumentException("Parâmetros inválidos.");
+
                 updateProgress(10, "A carregar dados...");
                 log("\n>>> A carregar dados: " + dataset);
-                Amostra sample = new Amostra(dataset);
+                Amostra sample = Amostra.carregar(dataset); // CSV ou binário (.amb)
                 log(">>> Dados carregados. Dimensões: " + sample.length() + " x " + sample.dim());
 
-                updateProgress(20, "A criar grafo...");
-                // 1. Criar grafo vazio
-                Graphoo graph = new Graphoo(sample.dim());
-                
-                // 2. Executar o algoritmo de aprendizagem EXTERNO
-                updateProgress(30, "A executar Hill Climbing...");
-                log(">>> A executar Hill Climbing com " + restarts + " restarts...");
-                learn(graph, sample, k, restarts);
+                Aprendizagem learner = new Aprendizagem(sample);
+                // Um atributo não pode ter mais pais do que os outros atributos
+                learner.setK(k);
+                if (learner.getK() != k) {
+                    int maxK = learner.getK();
+                    SwingUtilities.invokeLater(() -> kField.setText(String.valueOf(maxK)));
+                    log(">>> AVISO: K ajustado para " + maxK + " (há " + (maxK + 1) + " atributos).");
+                }
+                Score score = Score.porNome((String) scoreCombo.getSelectedItem());
+                learner.setRestarts(restarts);
+                learner.setSemente(seed);
+                learner.setScore(score);
+                learner.setEstrategia(search);
+                learner.setTempoLimite(seconds);
+                learner.setInicioTAN(tanCheck.isSelected());
+                learner.setCandidatos(candidates, 0);
+                learner.setProgresso(new Aprendizagem.Progresso() {
+                    @Override
+                    public void novoMelhor(double s, int restart) {
+                        log("   > Novo melhor score encontrado: " + String.format("%.2f", s) + " (restart " + (restart + 1) + ")");
+                    }
+
+                    @Override
+                    public void restartConcluido(int concluidos, int total) {
+                        // Progresso de 30% a 80% baseado no número de restarts
+                        updateProgress(30 + (int) (concluidos * 50.0 / total), "Restart " + concluidos + "/" + total);
+                    }
+                });
+
+                // Executar o algoritmo de aprendizagem EXTERNO
+                updateProgress(30, "A executar " + search + "...");
+                log(">>> A executar " + search + " com " + restarts + " restarts (semente " + seed + ")...");
+                Aprendizagem.Resultado result = learner.aprender();
+                log("   > " + result);
 
                 updateProgress(80, "A calcular score final...");
-                log(">>> Score MDL Final: " + String.format("%.4f", graph.MDL(sample)));
+                log(">>> Score " + score.nome() + " Final: " + String.format("%.4f", result.score));
                 log(">>> Construindo BN e gravando...");
-                
-                updateProgress(90, "A gravar ficheiro...");
-                BN network = new BN(graph, sample, 0.5);
 
-                String bnFileName = dataset.replace(".csv", ".bn");
-                try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(bnFileName))) {
-                    oos.writeObject(network);
-                }
+                updateProgress(90, "A gravar ficheiro...");
+                BN network = new BN(result.grafo, sample, 0.5);
+                String bnFileName = Aprendizagem.ficheiroRede(dataset);
+                network.gravar(bnFileName);
 
                 updateProgress(100, "Concluído!");
                 SwingUtilities.invokeLater(() -> updateConfigBorder(COLOR_GREEN));
@@ -182,158 +256,6 @@ public class App1_Aprendizagem extends JFrame {
         });
     }
 
-    // =========================================================================
-    //        ALGORITMO DE APRENDIZAGEM (FORA DA GRAPHOO)
-    // =========================================================================
-
-    private void learn(Graphoo g, Amostra T, int k, int numStarts) {
-        int n = T.dim();
-        int classIndex = n - 1;
-
-        // 1. Configurar Grafo Base (Classe é pai de todos)
-        for (int i = 0; i < classIndex; i++) {
-            g.add_edge(classIndex, i);
-        }
-
-        // Variáveis para guardar o melhor resultado
-        Graphoo bestGraph = new Graphoo(g); // Usa o construtor de cópia
-        double bestScore = bestGraph.MDL(T);
-
-        // 2. Random Restarts (com progresso de 30% a 80%)
-        for (int s = 0; s < numStarts; s++) {
-
-            // Calcular progresso: de 30% a 80% baseado no número de restarts
-            int progress = 30 + (int)((s + 1) * 50.0 / numStarts);
-            updateProgress(progress, "Restart " + (s + 1) + "/" + numStarts);
-            
-            Graphoo candidate;
-            if (s == 0) {
-                // Primeira tentativa: começa do grafo base (vazio + classe)
-                candidate = new Graphoo(g);
-            } else {
-                // Outras tentativas: começa de grafo aleatório
-                candidate = generateRandomGraph(n, k, classIndex);
-            }
-
-            // Executar Hill Climbing neste candidato
-            executeHillClimbing(candidate, T, k);
-
-            // Verificar se é o melhor
-            double currentScore = candidate.MDL(T);
-            if (currentScore > bestScore) {
-                bestScore = currentScore;
-                bestGraph = new Graphoo(candidate); // Guardar cópia do vencedor
-                log("   > Novo melhor score encontrado: " + String.format("%.2f", bestScore));
-            }
-        }
-
-        // 3. Copiar o melhor resultado para o grafo original 'g'
-        // Como não podemos fazer "g = melhorGrafo", temos de copiar a estrutura
-        // Assumindo que g está vazio ou sujo, limpamo-lo primeiro? 
-        // A Graphoo não tem "clear", mas podemos reconstruir.
-        
-        // Estratégia de Cópia Manual (já que não podemos mudar Graphoo):
-        // 1. Removemos todas as arestas existentes em G
-        for(int i=0; i<n; i++) {
-            // Copiar lista para evitar ConcurrentModificationException
-            LinkedList<Integer> parents = new LinkedList<>(g.parents(i));
-            for(Integer p : parents) g.remove_edge(p, i);
-        }
-        
-        // 2. Adicionamos as arestas do melhorGrafo
-        for(int i=0; i<n; i++) {
-            // parents() retorna quem aponta para i. add_edge(pai, filho)
-            for(Integer parent : bestGraph.parents(i)) {
-                g.add_edge(parent, i);
-            }
-        }
-    }
-
-    // Cria grafos aleatórios obrigatóriamente acíclicos
-    private Graphoo generateRandomGraph(int n, int k, int classIndex) {
-        Graphoo g = new Graphoo(n);
-        // Adicionar arestas da classe aos Xi's
-        for (int i = 0; i < classIndex; i++) g.add_edge(classIndex, i);
-
-        Random rand = new Random();
-        int attempts = n * k; // Define quantas tentativas de adicionar arestas aleatórias
-
-        for (int t = 0; t < attempts; t++) {
-            int u = rand.nextInt(classIndex); // Pai (atributo)
-            int v = rand.nextInt(classIndex); // Filho (atributo)
-
-            if (u != v) {
-                // Verifica se já existe
-                if (!g.parents(v).contains(u)) {
-                    // Verifica limite de pais (lembrando que parents() inclui a classe)
-                    if (g.parents(v).size() < k + 1) { // k atributos + 1 classe
-                        // Verifica ciclo
-                        if (!g.connected(v, u)) { // Impede a criação de ciclos
-                            g.add_edge(u, v);
-                        }
-                    }
-                }
-            }
-        }
-        return g;
-    }
-
-    private void executeHillClimbing(Graphoo g, Amostra T, int k) {
-        int n = T.dim();
-        int classIndex = n - 1;
-        int maxParents = k + 1; // k + classe
-        boolean improved = true;
-
-        while (improved) {
-            improved = false;
-            double bestDelta = 0.0001; // Limiar mínimo de melhoria para aceitar uma operação no Hill Climbing
-            int op = -1, bestU = -1, bestV = -1;
-
-            // Testar todas as arestas possíveis
-            for (int u = 0; u < n; u++) {
-                for (int v = 0; v < n; v++) {
-                    // Ignorar arestas da classe ou para a classe
-                    if (u == v || u == classIndex || v == classIndex) continue;
-
-                    boolean exists = g.parents(v).contains(u);
-
-                    if (!exists) {
-                        // Tentar ADICIONAR (op2)
-                        if (g.parents(v).size() < maxParents && !g.connected(v, u)) {
-                            double delta = g.MDLdelta(T, u, v, 2);
-                            if (delta > bestDelta) {
-                                bestDelta = delta; op = 2; bestU = u; bestV = v;
-                            }
-                        }
-                    } else {
-                        // Tentar REMOVER (op0)
-                        double deltaRem = g.MDLdelta(T, u, v, 0);
-                        if (deltaRem > bestDelta) {
-                            bestDelta = deltaRem; op = 0; bestU = u; bestV = v;
-                        }
-
-                        // Tentar INVERTER (op1)
-                        // Verifica se u pode receber v como pai sem criar ciclos
-                        if (g.parents(u).size() < maxParents && !g.connected(u, v)) {
-                            double deltaInv = g.MDLdelta(T, u, v, 1);
-                            if (deltaInv > bestDelta) {
-                                bestDelta = deltaInv; op = 1; bestU = u; bestV = v;
-                            }
-                        }
-                    }
-                }
-            }
-
-            // Aplicar melhor operação
-            if (op != -1) {
-                improved = true;
-                if (op == 0) g.remove_edge(bestU, bestV);
-                else if (op == 1) g.invert_edge(bestU, bestV);
-                else if (op == 2) g.add_edge(bestU, bestV);
-            }
-        }
-    }
-
     private void log(String msg) {
         SwingUtilities.invokeLater(() -> {
             logArea.append(msg + "\n");
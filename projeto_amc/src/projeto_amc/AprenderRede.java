@@ -0,0 +1,130 @@
+package projeto_amc;
+
+import java.io.IOException;
+
+// Utilitário de linha de comandos: aprende a rede de uma amostra e grava o .bn (sem interface gráfica)
+// Uso: java projeto_amc.AprenderRede letter.csv -k 2 -r 10 -s 42 -t 60 -score BIC -o letter.bn
+// Com -checkpoint o progresso é gravado durante a aprendizagem (e ao terminar o processo);
+// -retomar continua de um checkpoint, com os parâmetros dele.
+public class AprenderRede {
+
+    private static final String USO = "Uso: AprenderRede <amostra.csv|.amb> [-k pais] [-r restarts] [-s semente]"
+            + " [-j threads] [-t segundos] [-a avaliações] [-score " + String.join("|", Score.NOMES) + "]"
+            + " [-pesquisa \"" + String.join("\"|\"", PesquisaLocal.ESTRATEGIAS) + "\"] [-inicio nb|tan] [-m candidatos] [-periodo operações]"
+            + " [-tenure passos] [-semmelhoria passos] [-arrefecimento fator] [-o destino.bn]"
+            + " [-checkpoint ficheiro] [-intervalo segundos] [-retomar ficheiro] [-contagens tabelas|indice|adtree]";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length % 2 == 0) {
+            System.err.println(USO);
+            System.exit(1);
+        }
+        String dataset = args[0];
+        // A forma de contar é escolhida ao carregar: as tabelas em cache (por omissão), o índice bitmap
+        // ou a ADtree (que responde sem percorrer as linhas, à custa de memória)
+        String contagens = "tabelas";
+        for (int i = 1; i < args.length; i += 2) {
+            if (args[i].equals("-contagens")) contagens = args[i + 1];
+        }
+        if (!contagens.equals("tabelas") && !contagens.equals("indice") && !contagens.equals("adtree")) {
+            System.err.println("Contagens desconhecidas: " + contagens);
+            System.err.println(USO);
+            System.exit(1);
+        }
+        Amostra sample = null;
+        try {
+            sample = Amostra.carregar(dataset, false, contagens.equals("indice")); // CSV ou binário (.amb)
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Não foi possível ler " + dataset + ": " + e);
+            System.exit(1);
+        }
+        // Um job não deve gravar uma rede aprendida sobre nada
+        if (sample.length() == 0 || sample.dim() < 2) {
+            System.err.println(dataset + ": amostra sem dados (" + sample.length() + " x " + sample.dim()
+                    + "); são precisos pelo menos um atributo e a classe");
+            System.exit(1);
+        }
+        if (contagens.equals("adtree")) sample.criarADTree();
+        Aprendizagem learner = new Aprendizagem(sample);
+        String destino = Aprendizagem.ficheiroRede(dataset);
+        int k = learner.getK();
+        String checkpoint = null, retomar = null;
+        double intervalo = 60;
+        int m = 0, periodo = 0, tenure = 0, semMelhoria = 0;
+
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                String valor = args[i + 1];
+                switch (args[i]) {
+                    case "-k": k = Integer.parseInt(valor); learner.setK(k); break;
+                    case "-r": learner.setRestarts(Integer.parseInt(valor)); break;
+                    case "-s": learner.setSemente(Long.parseLong(valor)); break;
+                    case "-j": learner.setThreads(Integer.parseInt(valor)); break;
+                    case "-t": learner.setTempoLimite(Double.parseDouble(valor)); break;
+                    case "-a": learner.setMaxAvaliacoes(Long.parseLong(valor)); break;
+                    case "-score": learner.setScore(Score.porNome(valor)); break;
+                    case "-pesquisa": learner.setEstrategia(valor); break;
+                    case "-inicio":
+                        if (!valor.equalsIgnoreCase("nb") && !valor.equalsIgnoreCase("tan")) {
+                            throw new IllegalArgumentException("Início desconhecido: " + valor);
+                        }
+                        learner.setInicioTAN(valor.equalsIgnoreCase("tan"));
+                        break;
+                    case "-m": m = Integer.parseInt(valor); break;
+                    case "-periodo": periodo = Integer.parseInt(valor); break;
+                    case "-tenure": tenure = Integer.parseInt(valor); break;
+                    case "-semmelhoria": semMelhoria = Integer.parseInt(valor); break;
+                    case "-arrefecimento": learner.setArrefecimento(Double.parseDouble(valor)); break;
+                    case "-o": destino = valor; break;
+                    case "-checkpoint": checkpoint = valor; break;
+                    case "-intervalo": intervalo = Double.parseDouble(valor); break;
+                    case "-retomar": retomar = valor; break;
+                    case "-contagens": break; // Já usado ao carregar
+                    default: throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+                }
+            }
+            learner.setCandidatos(m, periodo);
+            learner.setTabu(tenure, semMelhoria);
+        } catch (IllegalArgumentException e) { // Inclui NumberFormatException
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(1);
+        }
+        if (retomar != null) {
+            Checkpoint c = Checkpoint.ler(retomar);
+            learner.retomar(c);
+            k = learner.getK();
+            if (checkpoint == null) checkpoint = retomar; // Continua a atualizar o mesmo ficheiro
+            System.out.println("A retomar " + retomar + ": " + c);
+        }
+        if (checkpoint != null) {
+            learner.setCheckpoint(checkpoint, intervalo);
+            // Se o processo for terminado (p.ex. no fim do tempo do job), fica gravado o melhor até agora
+            final String ficheiro = checkpoint;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    learner.gravarCheckpoint();
+                } catch (IOException e) {
+                    System.err.println("Não foi possível gravar o checkpoint " + ficheiro + ": " + e);
+                }
+            }));
+        }
+        if (learner.getK() != k) {
+            System.err.println("Aviso: k ajustado para " + learner.getK() + " (há " + (learner.getK() + 1) + " atributos)");
+        }
+
+        System.out.println(dataset + ": " + sample.length() + " x " + sample.dim() + ", semente " + learner.getSemente());
+        learner.setProgresso(new Aprendizagem.Progresso() {
+            @Override
+            public void novoMelhor(double score, int restart) {
+                System.out.println(String.format("  novo melhor score: %.4f (restart %d)", score, restart + 1));
+            }
+        });
+        Aprendizagem.Resultado r = learner.aprender();
+        System.out.println(String.format("Score %s: %.4f", r.grafo.getScore().nome(), r.score));
+        System.out.println(r);
+
+        new BN(r.grafo, sample, 0.5).gravar(destino);
+        System.out.println(dataset + " -> " + destino);
+    }
+}
@@ -0,0 +1,477 @@
+package projeto_amc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Aprendizagem da estrutura da rede, sem interface gráfica: parte do grafo naive Bayes (a classe
+// é pai de todos os atributos) e de grafos aleatórios, corre a pesquisa local em cada restart
+// (em paralelo) e devolve o melhor grafo. Usada pela App1_Aprendizagem e pela linha de comandos
+// (AprenderRede); o progresso é comunicado por um Progresso.
+public final class Aprendizagem {
+
+    // Intervalo mínimo (ns) entre atualizações do melhor grafo a partir de um restart ainda a correr
+    private static final long INTERVALO_MELHOR_ATUAL = 1000000000L;
+
+    // Observador do progresso; os métodos são chamados pelas threads dos restarts
+    public interface Progresso {
+        Progresso NENHUM = new Progresso() {};
+
+        default void novoMelhor(double score, int restart) {}
+
+        default void restartConcluido(int concluidos, int total) {}
+
+        // Uma gravação automática do checkpoint falhou; a aprendizagem continua (tenta-se de novo na próxima)
+        default void checkpointFalhou(String ficheiro, IOException erro) {
+            System.err.println("Aviso: não foi possível gravar o checkpoint " + ficheiro + ": " + erro);
+        }
+    }
+
+    private final Amostra T;
+    private int k = 2;
+    private int restarts = 10;
+    private long semente = new Random().nextLong();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Score score = Score.MDL;
+    private String estrategia = PesquisaLocal.ESTRATEGIAS[0];
+    private boolean inicioTAN;
+    private int candidatos;        // Sparse candidate: pais candidatos por nó (0 = todos)
+    private int periodoCandidatos; // Operações entre reestimações dos candidatos (0 = só no fim)
+    private int tenure, maxSemMelhoria; // Pesquisa tabu (0 = valores por omissão)
+    private double arrefecimento;       // Simulated annealing (0 = valor por omissão)
+    private double segundos;   // <= 0: sem prazo
+    private long avaliacoes;   // <= 0: sem limite
+    private Progresso progresso = Progresso.NENHUM;
+    private String ficheiroCheckpoint;
+    private long intervaloCheckpoint; // ns
+    private Checkpoint retomado;
+    private volatile Execucao execucao; // A última (ou atual) chamada a aprender()
+
+    public Aprendizagem(Amostra T) {
+        this.T = T;
+    }
+
+    // Máximo de pais atributos com que se pode aprender nesta amostra
+    public static int kMaximo(Amostra T) {
+        return Math.max(0, T.dim() - 2);
+    }
+
+    // Número máximo de pais atributos (além da classe); limitado a kMaximo
+    public void setK(int k) {
+        if (k < 0) throw new IllegalArgumentException("k inválido: " + k);
+        this.k = Math.min(k, kMaximo(T));
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public void setRestarts(int restarts) {
+        if (restarts < 1) throw new IllegalArgumentException("Número de restarts inválido: " + restarts);
+        this.restarts = restarts;
+    }
+
+    // Semente mestra: com a mesma semente (e o mesmo orçamento de avaliações) obtém-se a mesma rede
+    public void setSemente(long semente) {
+        this.semente = semente;
+    }
+
+    public long getSemente() {
+        return semente;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Número de threads inválido: " + threads);
+        this.threads = threads;
+    }
+
+    public void setScore(Score score) {
+        this.score = score;
+    }
+
+    // Uma de PesquisaLocal.ESTRATEGIAS
+    public void setEstrategia(String estrategia) {
+        if (!Arrays.asList(PesquisaLocal.ESTRATEGIAS).contains(estrategia)) {
+            throw new IllegalArgumentException("Estratégia desconhecida: " + estrategia);
+        }
+        this.estrategia = estrategia;
+    }
+
+    // O primeiro restart começa da árvore TAN (ArvoreTAN) em vez do naive Bayes; só com k >= 1
+    public void setInicioTAN(boolean tan) {
+        this.inicioTAN = tan;
+    }
+
+    // Sparse candidate: cada atributo só pode receber pais de entre m candidatos (CandidatosPais),
+    // reestimados a cada 'periodo' operações e quando a pesquisa para; m = 0: sem restrição
+    public void setCandidatos(int m, int periodo) {
+        if (m < 0 || periodo < 0) throw new IllegalArgumentException("Candidatos inválidos: " + m + ", " + periodo);
+        this.candidatos = m;
+        this.periodoCandidatos = periodo;
+    }
+
+    // Pesquisa tabu: passos em que um par alterado fica tabu e passos sem novo melhor até parar;
+    // 0: max(7, n/2) e 2·n
+    public void setTabu(int tenure, int maxSemMelhoria) {
+        if (tenure < 0 || maxSemMelhoria < 0) throw new IllegalArgumentException("Parâmetros tabu inválidos: " + tenure + ", " + maxSemMelhoria);
+        this.tenure = tenure;
+        this.maxSemMelhoria = maxSemMelhoria;
+    }
+
+    // Simulated annealing: fator em ]0, 1[ por que a temperatura é multiplicada a cada patamar; 0: 0.95
+    public void setArrefecimento(double arrefecimento) {
+        if (arrefecimento < 0 || arrefecimento >= 1) throw new IllegalArgumentException("Arrefecimento inválido: " + arrefecimento);
+        this.arrefecimento = arrefecimento;
+    }
+
+    // Tempo limite partilhado por todos os restarts (conta a partir de aprender()); <= 0: sem limite
+    public void setTempoLimite(double segundos) {
+        this.segundos = segundos;
+    }
+
+    // Máximo de avaliações de delta, dividido pelos restarts; <= 0: sem limite
+    public void setMaxAvaliacoes(long avaliacoes) {
+        this.avaliacoes = avaliacoes;
+    }
+
+    public void setProgresso(Progresso progresso) {
+        this.progresso = (progresso == null) ? Progresso.NENHUM : progresso;
+    }
+
+    // Grava um Checkpoint no ficheiro ao fim de cada restart e quando um restart em curso melhora o
+    // melhor grafo, no máximo uma vez por intervalo (e sempre no fim); null: sem checkpoints
+    public void setCheckpoint(String ficheiro, double intervaloSegundos) {
+        this.ficheiroCheckpoint = ficheiro;
+        this.intervaloCheckpoint = (long) (Math.max(0, intervaloSegundos) * 1e9);
+    }
+
+    // Continua a aprendizagem de um checkpoint: os parâmetros passam a ser os dele e os restarts
+    // já concluídos não voltam a correr
+    public void retomar(Checkpoint c) {
+        if (c.linhas != T.length() || c.colunas != T.dim()) {
+            throw new IllegalArgumentException("O checkpoint é de outra amostra (" + c.linhas + " x " + c.colunas + ")");
+        }
+        this.k = c.k;
+        this.score = Score.porNome(c.score);
+        setEstrategia(c.estrategia);
+        this.inicioTAN = c.tan;
+        this.candidatos = c.candidatos;
+        this.periodoCandidatos = c.periodoCandidatos;
+        this.tenure = c.tenure;
+        this.maxSemMelhoria = c.maxSemMelhoria;
+        this.arrefecimento = c.arrefecimento;
+        this.semente = c.semente;
+        this.restarts = c.restarts;
+        this.retomado = c;
+    }
+
+    // Melhor grafo até agora (a qualquer momento, de qualquer thread); null se aprender() não correu.
+    // Inclui o melhor grafo dos restarts ainda a correr, atualizado no máximo a cada segundo.
+    public Resultado melhorAtual() {
+        Execucao ex = execucao;
+        return (ex == null) ? null : ex.resultado();
+    }
+
+    // Grava já um checkpoint do estado atual (p.ex. antes de o processo terminar); sem efeito se não
+    // houver ficheiro de checkpoint ou se aprender() ainda não começou. Ao contrário das gravações
+    // automáticas, um erro chega a quem chama.
+    public void gravarCheckpoint() throws IOException {
+        Execucao ex = execucao;
+        if (ex != null) ex.gravarCheckpoint(true);
+    }
+
+    public Resultado aprender() {
+        Execucao ex = new Execucao();
+        execucao = ex;
+        Orcamento orcamento = Orcamento.de(segundos, avaliacoes);
+        int n = T.dim();
+        int classIndex = n - 1;
+
+        // 1. Grafo base (a classe é pai de todos)
+        Graphoo g = new Graphoo(n);
+        g.setScore(score);
+        for (int i = 0; i < classIndex; i++) {
+            g.add_edge(classIndex, i);
+        }
+        g.setScoreCache(ex.cache);
+
+        // Melhor resultado até agora: o grafo base ou o do checkpoint
+        if (retomado == null) {
+            ex.best.set(new Incumbente(g, g.score(T), -1));
+        } else {
+            Graphoo anterior = new Graphoo(retomado.melhor);
+            anterior.setScore(score);
+            anterior.setScoreCache(ex.cache);
+            ex.best.set(new Incumbente(anterior, anterior.score(T), retomado.melhorRestart));
+        }
+
+        // I(Xi; Xj | C), calculada uma vez para os candidatos de todos os restarts, e a cache das
+        // informações mútuas com mais pais
+        double[][] im = (candidatos > 0) ? CandidatosPais.informacaoMutua(T) : null;
+        CacheScores cacheIM = (candidatos > 0) ? new CacheScores(T, ScoreFamilia.INFORMACAO_MUTUA) : null;
+
+        // Uma semente por restart, tirada da semente mestra: cada restart é reprodutível
+        // independentemente da thread e da ordem em que corre
+        long[] seeds = new long[restarts];
+        Random master = new Random(semente);
+        for (int s = 0; s < restarts; s++) seeds[s] = master.nextLong();
+
+        // 2. Random Restarts, em paralelo num pool limitado
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(restarts, threads));
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int s = 0; s < restarts; s++) {
+            final int restart = s;
+            if (ex.concluidos[restart]) {
+                ex.done.incrementAndGet(); // Já feito antes do checkpoint
+                continue;
+            }
+            tasks.add(pool.submit(() -> {
+                Orcamento restartBudget = orcamento.porRestart(restarts);
+                if (restart > 0 && restartBudget.esgotado(0)) {
+                    progresso.restartConcluido(ex.done.incrementAndGet(), restarts); // Sem tempo para mais restarts
+                    return;
+                }
+                Random rand = new Random(seeds[restart]);
+                Graphoo candidate;
+                if (restart == 0 && inicioTAN && k >= 1) {
+                    // Primeira tentativa: começa da árvore TAN, já perto de um bom ótimo
+                    candidate = ArvoreTAN.construir(T, score);
+                    candidate.setScoreCache(ex.cache);
+                } else if (restart == 0) {
+                    // Primeira tentativa: começa do grafo base (vazio + classe)
+                    candidate = new Graphoo(g);
+                } else {
+                    // Outras tentativas: começa de grafo aleatório
+                    candidate = generateRandomGraph(n, k, classIndex, rand);
+                    candidate.setScore(score);
+                    candidate.setScoreCache(ex.cache);
+                }
+
+                // Executar a pesquisa local neste candidato
+                PesquisaLocal pesquisa = PesquisaLocal.criar(estrategia, candidate, T, k, rand, restartBudget,
+                        tenure, maxSemMelhoria, arrefecimento);
+                if (im != null) pesquisa.usarCandidatos(new CandidatosPais(T, candidatos, k, im, cacheIM), periodoCandidatos);
+                pesquisa.registarEstruturas(ex.estruturas, restart);
+                // Um restart longo também atualiza o melhor grafo (e o checkpoint) enquanto corre
+                long[] ultima = {System.nanoTime()};
+                pesquisa.observar(grafo -> {
+                    long agora = System.nanoTime();
+                    if (agora - ultima[0] < INTERVALO_MELHOR_ATUAL) return;
+                    ultima[0] = agora;
+                    if (ex.propor(new Incumbente(new Graphoo(grafo), grafo.score(T), restart))) ex.tentarCheckpoint(false);
+                });
+                pesquisa.executar();
+                ex.avaliacoes.add(pesquisa.avaliacoes());
+                ex.executados.incrementAndGet();
+
+                if (pesquisa.cortada()) {
+                    // Chegou ao caminho de outro restart, que acaba no mesmo ótimo (ou melhor): nada a comparar
+                    ex.cortados.incrementAndGet();
+                    ex.concluir(restart, false);
+                    progresso.restartConcluido(ex.done.incrementAndGet(), restarts);
+                    return;
+                }
+
+                // Verificar se é o melhor
+                Incumbente novo = new Incumbente(candidate, candidate.score(T), restart);
+                if (ex.propor(novo)) progresso.novoMelhor(novo.score, restart);
+
+                // Um restart cortado pelo prazo não conta como concluído: ao retomar volta a correr
+                ex.concluir(restart, restartBudget.prazoEsgotado());
+                progresso.restartConcluido(ex.done.incrementAndGet(), restarts);
+            }));
+        }
+        try {
+            for (Future<?> t : tasks) t.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Aprendizagem interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falhou um restart: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        ex.tentarCheckpoint(true); // Um erro aqui não deita fora o resultado
+        return ex.resultado();
+    }
+
+    // Estado de uma chamada a aprender(), partilhado pelas threads dos restarts
+    private final class Execucao {
+        final long inicio = System.nanoTime();
+        final CacheScores cache = new CacheScores(T, score); // Scores de família de todos os restarts
+        // Melhor resultado até agora (atualizado por compare-and-set)
+        final AtomicReference<Incumbente> best = new AtomicReference<>();
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger executados = new AtomicInteger();
+        final LongAdder avaliacoes = new LongAdder();
+        // Estruturas visitadas pelas pesquisas (hash de Zobrist -> primeiro restart a lá chegar e segundo hash)
+        final ConcurrentHashMap<Long, PesquisaLocal.Visita> estruturas = new ConcurrentHashMap<>();
+        final AtomicInteger cortados = new AtomicInteger(); // Restarts parados numa estrutura já visitada
+        final boolean[] concluidos; // Guardado pelo próprio array
+        long ultimoCheckpoint = inicio;
+
+        Execucao() {
+            if (retomado == null) {
+                concluidos = new boolean[restarts];
+            } else {
+                concluidos = retomado.concluidos.clone();
+                avaliacoes.add(retomado.avaliacoes);
+            }
+        }
+
+        // Passa a ser o melhor se for melhor do que o atual (compare-and-set); devolve se passou
+        boolean propor(Incumbente novo) {
+            Incumbente atual;
+            do {
+                atual = best.get();
+                if (!novo.melhorQue(atual)) return false;
+            } while (!best.compareAndSet(atual, novo));
+            return true;
+        }
+
+        void concluir(int restart, boolean cortado) {
+            synchronized (concluidos) {
+                if (!cortado) concluidos[restart] = true;
+            }
+            tentarCheckpoint(false);
+        }
+
+        // Gravação automática: o checkpoint é uma rede de segurança e nunca faz falhar a aprendizagem.
+        // Se falhar, ultimoCheckpoint fica como estava e a próxima oportunidade volta a tentar.
+        void tentarCheckpoint(boolean forcar) {
+            try {
+                gravarCheckpoint(forcar);
+            } catch (IOException e) {
+                progresso.checkpointFalhou(ficheiroCheckpoint, e);
+            }
+        }
+
+        void gravarCheckpoint(boolean forcar) throws IOException {
+            if (ficheiroCheckpoint == null) return;
+            synchronized (concluidos) {
+                long agora = System.nanoTime();
+                if (!forcar && agora - ultimoCheckpoint < intervaloCheckpoint) return;
+                Incumbente b = best.get();
+                if (b == null) return; // Ainda sem grafo base
+                new Checkpoint(T, k, score, estrategia, inicioTAN, candidatos, periodoCandidatos, tenure, maxSemMelhoria,
+                        arrefecimento, semente, concluidos, b.grafo, b.score, b.restart, avaliacoes.sum()).gravar(ficheiroCheckpoint);
+                ultimoCheckpoint = agora;
+            }
+        }
+
+        Resultado resultado() {
+            Incumbente melhor = best.get();
+            int n = T.dim();
+
+            // Cópia limpa do melhor grafo (sem cache de scores nem fecho transitivo)
+            Graphoo copia = new Graphoo(n);
+            copia.setScore(score);
+            for (int i = 0; i < n; i++) {
+                // parents() retorna quem aponta para i. add_edge(pai, filho)
+                for (int parent : melhor.grafo.parents(i)) {
+                    copia.add_edge(parent, i);
+                }
+            }
+            return new Resultado(copia, melhor.score, melhor.restart, executados.get(), restarts, cortados.get(),
+                    estruturas.size(), avaliacoes.sum(), (System.nanoTime() - inicio) / 1000000, cache.toString());
+        }
+    }
+
+    // Nome do .bn gravado para uma amostra (letter.csv ou letter.amb -> letter.bn)
+    public static String ficheiroRede(String dataset) {
+        return dataset.replaceAll("\\.(csv|amb)$", "") + ".bn";
+    }
+
+    // Cria grafos aleatórios obrigatóriamente acíclicos
+    static Graphoo generateRandomGraph(int n, int k, int classIndex, Random rand) {
+        Graphoo g = new Graphoo(n);
+        g.trackReachability(true); // Testes de ciclo em O(1)
+        // Adicionar arestas da classe aos Xi's
+        for (int i = 0; i < classIndex; i++) g.add_edge(classIndex, i);
+
+        int attempts = n * k; // Define quantas tentativas de adicionar arestas aleatórias
+
+        for (int t = 0; t < attempts; t++) {
+            int u = rand.nextInt(classIndex); // Pai (atributo)
+            int v = rand.nextInt(classIndex); // Filho (atributo)
+
+            if (u != v) {
+                // Verifica se já existe
+                if (!g.has_edge(u, v)) {
+                    // Verifica limite de pais (lembrando que parents() inclui a classe)
+                    if (g.parentCount(v) < k + 1) { // k atributos + 1 classe
+                        // Verifica ciclo
+                        if (!g.connected(v, u)) { // Impede a criação de ciclos
+                            g.add_edge(u, v);
+                        }
+                    }
+                }
+            }
+        }
+        return g;
+    }
+
+    // Rede aprendida e estatísticas da execução
+    public static final class Resultado {
+        public final Graphoo grafo;
+        public final double score;
+        public final int melhorRestart;       // Restart (a partir de 0) que encontrou o grafo; -1 = grafo base
+        public final int restartsExecutados;  // Os restantes foram saltados por falta de tempo
+        public final int restarts;
+        public final int restartsCortados;    // Parados ao chegar ao caminho de outro restart
+        public final int estruturas;          // Estruturas distintas visitadas pelas pesquisas
+        public final long avaliacoes;         // Avaliações de delta em todos os restarts
+        public final long tempoMs;
+        public final String cache;            // Estatísticas da cache de scores
+
+        Resultado(Graphoo grafo, double score, int melhorRestart, int restartsExecutados, int restarts,
+                  int restartsCortados, int estruturas, long avaliacoes, long tempoMs, String cache) {
+            this.grafo = grafo;
+            this.score = score;
+            this.melhorRestart = melhorRestart;
+            this.restartsExecutados = restartsExecutados;
+            this.restarts = restarts;
+            this.restartsCortados = restartsCortados;
+            this.estruturas = estruturas;
+            this.avaliacoes = avaliacoes;
+            this.tempoMs = tempoMs;
+            this.cache = cache;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d restarts (%d cortados por repetirem outro), %d estruturas distintas,"
+                    + " %d avaliações, %d ms; cache de scores: %s",
+                    restartsExecutados, restarts, restartsCortados, estruturas, avaliacoes, tempoMs, cache);
+        }
+    }
+
+    // Melhor grafo encontrado; em caso de empate no score fica o do restart com menor índice,
+    // para o resultado não depender da ordem em que os restarts terminam. Com o mesmo restart fica o
+    // mais recente: o grafo final de um restart substitui o que ele deixou enquanto corria.
+    private static final class Incumbente {
+        final Graphoo grafo;
+        final double score;
+        final int restart;
+
+        Incumbente(Graphoo grafo, double score, int restart) {
+            this.grafo = grafo;
+            this.score = score;
+            this.restart = restart;
+        }
+
+        boolean melhorQue(Incumbente outro) {
+            return score > outro.score || (score == outro.score && restart <= outro.restart);
+        }
+    }
+}
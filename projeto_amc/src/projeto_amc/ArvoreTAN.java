@@ -0,0 +1,78 @@
+package projeto_amc;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Grafo TAN (Tree-Augmented Naive Bayes) de Chow-Liu, usado como ponto de partida da pesquisa:
+// a classe é pai de todos os atributos e os atributos formam a árvore de peso máximo. O peso de um
+// par é o ganho de score de ligar Xi e Xj; nos scores de verosimilhança é N·I(Xi; Xj | C) menos a
+// penalização do pai extra. Pares com ganho <= 0 não entram (fica uma floresta): com o I(Xi; Xj | C)
+// puro, os pares de domínios grandes entravam sempre e o grafo inicial era pior do que o naive Bayes.
+// Cada atributo fica com no máximo um pai atributo (serve para k >= 1).
+final class ArvoreTAN {
+
+    private ArvoreTAN() {
+    }
+
+    // Ganho de score de Xj como pai de Xi (além da classe), simetrizado pela média dos dois sentidos
+    // (nos scores em que a penalização é simétrica, como MDL, BIC e AIC, os dois são iguais).
+    // Cada linha é calculada numa tarefa; as contagens vêm das tabelas (Xi, Xj, C) da amostra.
+    static double[][] pesos(Amostra T, Score score) {
+        int atributos = T.dim() - 1;
+        int classe = atributos;
+        double[] base = new double[atributos]; // Score de Xi só com a classe
+        IntStream.range(0, atributos).parallel().forEach(i -> base[i] = score.familia(T, i, new int[] {classe}));
+        double[][] w = new double[atributos][atributos];
+        IntStream.range(0, atributos).parallel().forEach(i -> {
+            for (int j = i + 1; j < atributos; j++) {
+                double ij = score.familia(T, i, new int[] {j, classe}) - base[i];
+                double ji = score.familia(T, j, new int[] {i, classe}) - base[j];
+                w[i][j] = (ij + ji) / 2;
+            }
+        });
+        for (int i = 0; i < atributos; i++) {
+            for (int j = 0; j < i; j++) w[i][j] = w[j][i];
+        }
+        return w;
+    }
+
+    // Pai de cada nó na floresta de peso máximo, só com arestas de peso > 0 (-1 = raiz).
+    // Prim sobre a matriz completa: O(n²), o que num grafo denso é melhor do que O(n² log n).
+    // Cada árvore tem raiz no seu nó de menor índice.
+    static int[] arvoreMaxima(double[][] w) {
+        int n = w.length;
+        int[] pai = new int[n];
+        double[] melhor = new double[n]; // Peso da melhor ligação à árvore (0 = nenhuma)
+        boolean[] naArvore = new boolean[n];
+        Arrays.fill(pai, -1);
+        for (int passo = 0; passo < n; passo++) {
+            // Nó fora da árvore com a ligação mais forte; sem ligações, o de menor índice (nova raiz)
+            int u = -1;
+            for (int v = 0; v < n; v++) {
+                if (!naArvore[v] && (u == -1 || melhor[v] > melhor[u])) u = v;
+            }
+            naArvore[u] = true;
+            for (int v = 0; v < n; v++) {
+                if (!naArvore[v] && w[u][v] > melhor[v]) {
+                    melhor[v] = w[u][v];
+                    pai[v] = u;
+                }
+            }
+        }
+        return pai;
+    }
+
+    // Grafo TAN da amostra para o score: arestas classe -> Xi e pai -> Xi para os atributos não raiz
+    static Graphoo construir(Amostra T, Score score) {
+        int n = T.dim();
+        int classIndex = n - 1;
+        Graphoo g = new Graphoo(n);
+        g.setScore(score);
+        for (int i = 0; i < classIndex; i++) g.add_edge(classIndex, i);
+        int[] pai = arvoreMaxima(pesos(T, score));
+        for (int i = 0; i < classIndex; i++) {
+            if (pai[i] >= 0) g.add_edge(pai[i], i);
+        }
+        return g;
+    }
+}
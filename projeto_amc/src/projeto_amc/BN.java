@@ -2,10 +2,11 @@ package projeto_amc;
 
 //package projeto2025;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 public class BN implements Serializable {
 
@@ -29,19 +30,22 @@ public class BN implements Serializable {
         trainOffline();
     }
     
+    // Grava a rede serializada (o .bn lido pela App2_Classificacao)
+    public void gravar(String ficheiro) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(ficheiro))) {
+            oos.writeObject(this);
+        }
+    }
+
     private void trainOffline() {
         int n = dataset.dim();          // Número total de colunas/ variáveis
         int classIndex = n - 1;         
         int classDomain = dataset.domain(classIndex); 
         
         classProbs = new double[classDomain];
-        int[] classCounts = new int[classDomain];
 
         // Conta quantos casos se encaixam em cada caso do dominio da classe
-        for (int i = 0; i < dataset.length(); i++) {
-            int val = dataset.element(i)[classIndex]; // guarda em val o valor do elemento i da classe
-            classCounts[val]++; 
-        }
+        int[] classCounts = dataset.contagens(new int[] {classIndex});
 
         // Transforma contagens em Log-Probabilidades 
         for (int c = 0; c < classDomain; c++) {
@@ -57,9 +61,7 @@ public class BN implements Serializable {
 
         for (int i = 0; i < n - 1; i++) { 
             // O classificador exige P(Atributo | Pais, Classe).
-            LinkedList<Integer> graphParents = graph.parents(i);
-            List<Integer> effectiveParents = new ArrayList<>(graphParents);
-            effectiveParents.add(classIndex); 
+            int[] effectiveParents = effectiveParents(i, classIndex);
 
             int childDomain = dataset.domain(i); // Domínio de um atributo específico
 
@@ -71,7 +73,7 @@ public class BN implements Serializable {
             }
 
             cpts[i] = new double[tableSize];
-            strides[i] = new int[effectiveParents.size() + 1];
+            strides[i] = new int[effectiveParents.length + 1];
 
             // Permite a navegação na tabela
             // Indica onde guardar os dados na lista.
@@ -83,14 +85,12 @@ public class BN implements Serializable {
                 accum *= dataset.domain(p);
             }
 
-            // Conta ocorrências nos dados e encontra o local correto na tabela para guardar essa informação
-            int[] counts = new int[tableSize];
-            for (int k = 0; k < dataset.length(); k++) {
-                int[] row = dataset.element(k);
-                // Encontra a posição correta na tabela para esta linha de dados
-                int index = computeIndex(i, row, effectiveParents);
-                counts[index]++; // Incrementa 1 unidade ao valor associado a essa posição
-            }
+            // Conta ocorrências nos dados numa só passagem (por colunas, se a amostra for colunar).
+            // A tabela vem com o mesmo layout que computeIndex: filho, pais pela ordem, classe.
+            int[] family = new int[effectiveParents.length + 1];
+            family[0] = i;
+            System.arraycopy(effectiveParents, 0, family, 1, effectiveParents.length);
+            int[] counts = dataset.contagens(family);
 
             // Converte as contagens em Probabilidades (com suavização S)
             int parentConfigs = tableSize / childDomain; // Nr de combinações de pais (incluindo classe) existentes
@@ -113,9 +113,17 @@ public class BN implements Serializable {
         }
     }
 
+    // Pais do grafo mais a classe (por esta ordem)
+    private int[] effectiveParents(int i, int classIndex) {
+        int[] graphParents = graph.parents(i);
+        int[] effective = Arrays.copyOf(graphParents, graphParents.length + 1);
+        effective[graphParents.length] = classIndex;
+        return effective;
+    }
+
     // Converte coordenadas multidimensionais numa Posição Linear.
     // Tranforma uma combinação de atributos num número único
-    private int computeIndex(int varIndex, int[] values, List<Integer> parents) {
+    private int computeIndex(int varIndex, int[] values, int[] parents) {
         int idx = values[varIndex]; // Valor associado ao atributo (variável) em questão
         int pCount = 0;
         for (int parent : parents) { // Percorre cada pai da lista dos pais 
@@ -138,9 +146,7 @@ public class BN implements Serializable {
         for (int i = 0; i < dataset.dim() - 1; i++) {
         	
             // Pais efetivos: grafo + Classe
-            LinkedList<Integer> graphParents = graph.parents(i);
-            List<Integer> effectiveParents = new ArrayList<>(graphParents);
-            effectiveParents.add(classIndex); // Adiciona a classe aos pais
+            int[] effectiveParents = effectiveParents(i, classIndex);
             
             // Vai buscar a probabilidade da instancia e soma ao valor existente de logTotal 
             int index = computeIndex(i, instance, effectiveParents);
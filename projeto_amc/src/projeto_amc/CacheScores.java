@@ -0,0 +1,88 @@
+package projeto_amc;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache de scores de família: (nó, conjunto de pais) -> score do nó.
+// Como o MDL é decomponível, o score de um grafo é a soma destes valores e a pesquisa repete
+// muitas famílias (entre operações, iterações e restarts). Válida para uma amostra e um score.
+final class CacheScores {
+
+    private final Amostra amostra;
+    private final Score score;
+    private final ConcurrentHashMap<Familia, Double> scores = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CacheScores(Amostra amostra) {
+        this(amostra, Score.MDL);
+    }
+
+    CacheScores(Amostra amostra, Score score) {
+        this.amostra = amostra;
+        this.score = score;
+    }
+
+    boolean serve(Amostra a, Score s) {
+        return a == amostra && s == score;
+    }
+
+    // Score guardado para o nó com estes pais (bitset), ou NaN se ainda não existe
+    double procurar(int no, long[] pais) {
+        Double s = scores.get(new Familia(no, pais));
+        if (s == null) {
+            misses.increment();
+            return Double.NaN;
+        }
+        hits.increment();
+        return s;
+    }
+
+    void guardar(int no, long[] pais, double score) {
+        scores.put(new Familia(no, pais.clone()), score); // Copia: o bitset do grafo vai mudar
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    int tamanho() {
+        return scores.size();
+    }
+
+    @Override
+    public String toString() {
+        long h = hits(), m = misses();
+        return String.format("%d famílias, %d hits / %d misses (%.1f%%)", tamanho(), h, m, (h + m == 0) ? 0.0 : 100.0 * h / (h + m));
+    }
+
+    // Chave: nó + máscara canónica dos pais
+    private static final class Familia {
+        final int no;
+        final long[] pais;
+        final int hash;
+
+        Familia(int no, long[] pais) {
+            this.no = no;
+            this.pais = pais;
+            this.hash = 31 * Arrays.hashCode(pais) + no;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Familia)) return false;
+            Familia f = (Familia) o;
+            return no == f.no && Arrays.equals(pais, f.pais);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
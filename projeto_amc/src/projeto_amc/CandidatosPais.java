@@ -0,0 +1,121 @@
+package projeto_amc;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Sparse candidate (Friedman, Nachman & Pe'er): cada atributo só pode receber como pai um de m
+// candidatos, os pais atuais mais os atributos com maior I(Xi; Xj | pais atuais, C). A pesquisa
+// local passa a avaliar O(n·m) operações de adicionar/inverter em vez de O(n²); como a escolha
+// depende dos pais atuais, os candidatos são reestimados durante a pesquisa.
+final class CandidatosPais {
+
+    private final Amostra T;
+    private final int m;
+    private final int k; // Máximo de pais atributos
+    private final int atributos;
+    private final double[][] base; // I(Xi; Xj | C): candidatos dos nós sem pais atributos
+    private final CacheScores cache; // N·I(Xi; pais | C) por família, partilhada pelos restarts
+    private final boolean[][] permitido; // [filho][pai]
+    private final int[][] estimadoCom;   // Pais de cada nó na última estimação (null = nunca)
+
+    // base: de informacaoMutua(T); cache: CacheScores(T, ScoreFamilia.INFORMACAO_MUTUA). As duas podem
+    // ser partilhadas por todas as pesquisas sobre a amostra.
+    CandidatosPais(Amostra T, int m, int k, double[][] base, CacheScores cache) {
+        this.T = T;
+        this.m = m;
+        this.k = k;
+        this.atributos = T.dim() - 1;
+        this.base = base;
+        this.cache = cache;
+        this.permitido = new boolean[T.dim()][T.dim()];
+        this.estimadoCom = new int[atributos][];
+    }
+
+    // I(Xi; Xj | C) em bits para todos os pares de atributos (simétrica), uma linha por tarefa
+    static double[][] informacaoMutua(Amostra T) {
+        int atributos = T.dim() - 1;
+        double[][] w = new double[atributos][atributos];
+        IntStream.range(0, atributos).parallel().forEach(i -> {
+            for (int j = i + 1; j < atributos; j++) {
+                w[i][j] = ScoreFamilia.informacaoMutua(T, i, new int[] {j});
+            }
+        });
+        for (int i = 0; i < atributos; i++) {
+            for (int j = 0; j < i; j++) w[i][j] = w[j][i];
+        }
+        return w;
+    }
+
+    // Pode u ser pai de v? (a classe é sempre pai e nunca filho)
+    boolean permite(int u, int v) {
+        return permitido[v][u];
+    }
+
+    // Escolhe os candidatos de cada atributo para os pais atuais de g; devolve se algum mudou.
+    // Os nós cujos pais não mudaram desde a última estimação mantêm os candidatos.
+    boolean estimar(Graphoo g) {
+        int classIndex = atributos;
+        boolean[] mudou = new boolean[atributos];
+        IntStream.range(0, atributos).parallel().forEach(i -> {
+            int[] pais = g.parents(i); // Inclui a classe
+            if (Arrays.equals(pais, estimadoCom[i])) return;
+            estimadoCom[i] = pais;
+            boolean[] novo = new boolean[atributos + 1];
+            int livres = m;
+            for (int p : pais) {
+                if (p != classIndex) {
+                    novo[p] = true; // Os pais atuais ficam sempre (podem ser removidos ou invertidos)
+                    livres--;
+                }
+            }
+            boolean semPais = (livres == m);
+            if (m - livres >= k) livres = 0; // No limite de pais: só pode perder pais, não há o que ordenar
+
+            if (livres > 0) escolher(i, pais, semPais, livres, novo);
+            if (!Arrays.equals(novo, permitido[i])) {
+                mudou[i] = true;
+                permitido[i] = novo; // Cada tarefa só escreve a sua linha
+            }
+        });
+        for (boolean b : mudou) if (b) return true;
+        return false;
+    }
+
+    // N·I(Xi; pais | C) da família (pais em bitset, com a classe), da cache ou calculada
+    private double informacaoMutuaFamilia(int i, long[] pais) {
+        double s = cache.procurar(i, pais);
+        if (Double.isNaN(s)) {
+            s = ScoreFamilia.INFORMACAO_MUTUA.familia(T, i, Graphoo.indices(pais));
+            cache.guardar(i, pais, s);
+        }
+        return s;
+    }
+
+    // Marca em novo os 'livres' atributos com maior I(Xi; Xj | pais, C), que ordena como
+    // I(Xi; pais + Xj | C) (a parcela I(Xi; pais | C) é comum a todos os j)
+    private void escolher(int i, int[] pais, boolean semPais, int livres, boolean[] novo) {
+        double[] ganho = new double[atributos];
+        long[] bits = new long[(T.dim() + 63) >>> 6]; // Pais como na Graphoo, para a cache
+        for (int p : pais) bits[p >>> 6] |= 1L << p;
+        for (int j = 0; j < atributos; j++) {
+            if (j == i || novo[j]) {
+                ganho[j] = Double.NEGATIVE_INFINITY;
+            } else if (semPais) {
+                ganho[j] = base[i][j];
+            } else {
+                bits[j >>> 6] |= 1L << j;
+                ganho[j] = informacaoMutuaFamilia(i, bits);
+                bits[j >>> 6] &= ~(1L << j);
+            }
+        }
+        for (; livres > 0; livres--) {
+            int melhor = -1;
+            for (int j = 0; j < atributos; j++) {
+                if (ganho[j] != Double.NEGATIVE_INFINITY && (melhor == -1 || ganho[j] > ganho[melhor])) melhor = j;
+            }
+            if (melhor == -1) break;
+            novo[melhor] = true;
+            ganho[melhor] = Double.NEGATIVE_INFINITY;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package projeto_amc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+// Estado de uma aprendizagem gravado em disco: o melhor grafo até agora e o seu score, a semente
+// mestra, os parâmetros e os restarts já concluídos. Como a semente de cada restart é tirada da
+// semente mestra, isto chega para retomar: os restarts por concluir são corridos de novo desde o
+// início, com as mesmas sementes, e o resultado é o mesmo de uma execução sem interrupções.
+public final class Checkpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Parâmetros (têm de coincidir ao retomar)
+    final int linhas, colunas; // Dimensões da amostra
+    final int k;
+    final String score;        // Score.nome()
+    final String estrategia;
+    final boolean tan;         // Primeiro restart a partir da árvore TAN
+    final int candidatos, periodoCandidatos; // Sparse candidate (0 = desligado)
+    // Tabu e simulated annealing (0 = por omissão, também nos checkpoints gravados antes destes campos)
+    final int tenure, maxSemMelhoria;
+    final double arrefecimento;
+    final long semente;
+    final int restarts;
+
+    // Progresso
+    final boolean[] concluidos;
+    final Graphoo melhor;
+    final double melhorScore;
+    final int melhorRestart;   // -1 = grafo base
+    final long avaliacoes;
+
+    Checkpoint(Amostra T, int k, Score score, String estrategia, boolean tan,
+               int candidatos, int periodoCandidatos, int tenure, int maxSemMelhoria, double arrefecimento,
+               long semente, boolean[] concluidos,
+               Graphoo melhor, double melhorScore, int melhorRestart, long avaliacoes) {
+        this.linhas = T.length();
+        this.colunas = T.dim();
+        this.k = k;
+        this.score = score.nome();
+        this.estrategia = estrategia;
+        this.tan = tan;
+        this.candidatos = candidatos;
+        this.periodoCandidatos = periodoCandidatos;
+        this.tenure = tenure;
+        this.maxSemMelhoria = maxSemMelhoria;
+        this.arrefecimento = arrefecimento;
+        this.semente = semente;
+        this.restarts = concluidos.length;
+        this.concluidos = concluidos.clone();
+        this.melhor = new Graphoo(melhor);
+        this.melhorScore = melhorScore;
+        this.melhorRestart = melhorRestart;
+        this.avaliacoes = avaliacoes;
+    }
+
+    int numConcluidos() {
+        int c = 0;
+        for (boolean b : concluidos) if (b) c++;
+        return c;
+    }
+
+    // Grava num ficheiro temporário e troca-o pelo destino: um checkpoint antigo nunca fica a meio
+    void gravar(String ficheiro) throws IOException {
+        File destino = new File(ficheiro).getAbsoluteFile();
+        File tmp = new File(destino.getPath() + ".tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(tmp))) {
+            oos.writeObject(this);
+        }
+        Files.move(tmp.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Checkpoint ler(String ficheiro) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(ficheiro))) {
+            return (Checkpoint) ois.readObject();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d restarts concluídos, melhor %s %.4f (restart %d), semente %d",
+                numConcluidos(), restarts, score, melhorScore, melhorRestart + 1, semente);
+    }
+}
@@ -0,0 +1,173 @@
+package projeto_amc;
+
+import java.util.Arrays;
+
+// Armazenamento colunar da amostra: cada variável é um array contíguo com a largura mínima
+// que o seu domínio permite (byte[] até 255, short[] até 65535, int[] nos restantes casos).
+final class Colunas implements java.io.Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Tamanho dos blocos de linhas processados de cada vez (cabe na cache L1/L2)
+    static final int BLOCO = 4096;
+
+    private final Object[] colunas; // byte[] | short[] | int[]
+    private int n;                  // Número de linhas
+
+    Colunas(int dim, int[] maximos, int capacidade) {
+        this.colunas = new Object[dim];
+        for (int v = 0; v < dim; v++) colunas[v] = novaColuna(maximos[v], Math.max(capacidade, 16));
+    }
+
+    // Colunas já preenchidas (p.ex. lidas de um ficheiro binário)
+    Colunas(Object[] colunas, int n) {
+        this.colunas = colunas;
+        this.n = n;
+    }
+
+    private static Object novaColuna(int maximo, int capacidade) {
+        if (maximo <= 0xFF) return new byte[capacidade];
+        if (maximo <= 0xFFFF) return new short[capacidade];
+        return new int[capacidade];
+    }
+
+    int length() {
+        return n;
+    }
+
+    int dim() {
+        return colunas.length;
+    }
+
+    void add(int[] v) {
+        if (n == capacidade()) {
+            for (int k = 0; k < colunas.length; k++) colunas[k] = copia(colunas[k], 2 * n);
+        }
+        for (int k = 0; k < colunas.length; k++) {
+            int x = v[k];
+            Object c = colunas[k];
+            if (c instanceof byte[]) {
+                if (x < 0 || x > 0xFF) { c = alargar(k, x); }
+                else { ((byte[]) c)[n] = (byte) x; continue; }
+            }
+            if (c instanceof short[]) {
+                if (x < 0 || x > 0xFFFF) { c = alargar(k, x); }
+                else { ((short[]) c)[n] = (short) x; continue; }
+            }
+            ((int[]) c)[n] = x;
+        }
+        n++;
+    }
+
+    // Troca a coluna por uma mais larga quando aparece um valor fora do alcance atual
+    private Object alargar(int var, int x) {
+        Object c = colunas[var];
+        int cap = capacidade();
+        Object nova = (x >= 0 && x <= 0xFFFF) ? new short[cap] : new int[cap];
+        for (int i = 0; i < n; i++) {
+            int val = valor(c, i);
+            if (nova instanceof short[]) ((short[]) nova)[i] = (short) val;
+            else ((int[]) nova)[i] = val;
+        }
+        colunas[var] = nova;
+        return nova;
+    }
+
+    private int capacidade() {
+        Object c = colunas[0];
+        if (c instanceof byte[]) return ((byte[]) c).length;
+        if (c instanceof short[]) return ((short[]) c).length;
+        return ((int[]) c).length;
+    }
+
+    private static Object copia(Object c, int tamanho) {
+        if (c instanceof byte[]) return Arrays.copyOf((byte[]) c, tamanho);
+        if (c instanceof short[]) return Arrays.copyOf((short[]) c, tamanho);
+        return Arrays.copyOf((int[]) c, tamanho);
+    }
+
+    private static int valor(Object c, int i) {
+        if (c instanceof byte[]) return ((byte[]) c)[i] & 0xFF;
+        if (c instanceof short[]) return ((short[]) c)[i] & 0xFFFF;
+        return ((int[]) c)[i];
+    }
+
+    // Array da coluna (pode ter capacidade superior a length())
+    Object coluna(int var) {
+        return colunas[var];
+    }
+
+    // Bytes por valor da coluna: 1, 2 ou 4
+    static int largura(Object c) {
+        if (c instanceof byte[]) return 1;
+        if (c instanceof short[]) return 2;
+        return 4;
+    }
+
+    int valor(int linha, int var) {
+        return valor(colunas[var], linha);
+    }
+
+    // Reconstrói uma linha (compatibilidade com element)
+    int[] linha(int i) {
+        int[] r = new int[colunas.length];
+        for (int k = 0; k < r.length; k++) r[k] = valor(colunas[k], i);
+        return r;
+    }
+
+    // idx[r - inicio] += valor(r, var) * passo, para r em [inicio, fim). Um laço apertado por tipo.
+    void acumular(int var, int passo, int[] idx, int inicio, int fim) {
+        Object c = colunas[var];
+        int m = fim - inicio;
+        if (c instanceof byte[]) {
+            byte[] col = (byte[]) c;
+            for (int r = 0; r < m; r++) idx[r] += (col[inicio + r] & 0xFF) * passo;
+        } else if (c instanceof short[]) {
+            short[] col = (short[]) c;
+            for (int r = 0; r < m; r++) idx[r] += (col[inicio + r] & 0xFFFF) * passo;
+        } else {
+            int[] col = (int[]) c;
+            for (int r = 0; r < m; r++) idx[r] += col[inicio + r] * passo;
+        }
+    }
+
+    // ok[r - inicio] &= (valor(r, var) == val), para r em [inicio, fim)
+    void filtrar(int var, int val, int[] ok, int inicio, int fim) {
+        Object c = colunas[var];
+        int m = fim - inicio;
+        if (c instanceof byte[]) {
+            byte[] col = (byte[]) c;
+            for (int r = 0; r < m; r++) ok[r] &= ((col[inicio + r] & 0xFF) == val) ? 1 : 0;
+        } else if (c instanceof short[]) {
+            short[] col = (short[]) c;
+            for (int r = 0; r < m; r++) ok[r] &= ((col[inicio + r] & 0xFFFF) == val) ? 1 : 0;
+        } else {
+            int[] col = (int[]) c;
+            for (int r = 0; r < m; r++) ok[r] &= (col[inicio + r] == val) ? 1 : 0;
+        }
+    }
+
+    // Preenche a tabela com as linhas [inicio, fim), bloco a bloco
+    void preencher(TabelaContagens t, int inicio, int fim) {
+        int[] idx = new int[BLOCO];
+        for (int b = inicio; b < fim; b += BLOCO) {
+            int e = Math.min(fim, b + BLOCO);
+            Arrays.fill(idx, 0);
+            for (int k = 0; k < t.vars.length; k++) acumular(t.vars[k], t.strides[k], idx, b, e);
+            for (int r = 0; r < e - b; r++) t.contagens[idx[r]]++;
+        }
+    }
+
+    // Número de linhas em [inicio, fim) que satisfazem var[k] == val[k] para todo o k
+    int contar(int[] var, int[] val, int inicio, int fim) {
+        int[] ok = new int[BLOCO];
+        int total = 0;
+        for (int b = inicio; b < fim; b += BLOCO) {
+            int e = Math.min(fim, b + BLOCO);
+            Arrays.fill(ok, 1);
+            for (int k = 0; k < var.length; k++) filtrar(var[k], val[k], ok, b, e);
+            for (int r = 0; r < e - b; r++) total += ok[r];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,193 @@
+package projeto_amc;
+
+import java.util.Arrays;
+
+// Estatísticas suficientes de uma família (nó xi, pais atributos, classe), partilhadas pelos scores:
+// para cada configuração j = (pais, classe) não vazia, N(j) e as contagens N(j, xi) não nulas,
+// e ainda as marginais N(c) e N(xi, c). Os arrays são reutilizados de família para família
+// (um objeto por thread), por isso, depois de aquecidos, não há alocações por linha nem por célula;
+// por família ainda se alocam alguns arrays pequenos (as variáveis da tabela e a chave da cache de
+// tabelas em Amostra.tabela, os índices dos pais em Graphoo.scoreNode).
+final class ContagensFamilia {
+
+    // Acima deste número de células usa-se uma tabela esparsa (chaves ordenadas) em vez da densa
+    static final long LIMITE_TABELA_DENSA = 1 << 22;
+
+    int r;          // Domínio do nó
+    int domClasse;  // Domínio da classe
+    double q;       // Número de configurações (pais, classe), incluindo as vazias
+
+    int grupos;                       // Configurações não vazias
+    int[] nGrupo = new int[16];       // N(j)
+    int[] fimGrupo = new int[16];     // As células do grupo j são [fimGrupo[j - 1], fimGrupo[j])
+    int celulas;
+    int[] nCelula = new int[16];      // N(j, xi) > 0, agrupadas por configuração
+    int[] nClasse = new int[16];      // N(c)
+    int[] nFilhoClasse = new int[16]; // N(xi, c), no índice xi * domClasse + c
+
+    // Espaço de trabalho
+    private int[] vars = new int[4];
+    private int[] grupoDenso = new int[16];
+    private long[] chaves = new long[16];
+    private long[] distintas = new long[16];
+
+    // Conta a família do nó i. 'pais' como em Graphoo.parents: a classe pode estar incluída.
+    void preencher(Amostra a, int i, int[] pais) {
+        int classIndex = a.dim() - 1;
+        r = a.domain(i);
+        domClasse = a.domain(classIndex);
+        nClasse = garantir(nClasse, domClasse);
+        nFilhoClasse = garantir(nFilhoClasse, r * domClasse);
+        Arrays.fill(nClasse, 0, domClasse, 0);
+        Arrays.fill(nFilhoClasse, 0, r * domClasse, 0);
+        grupos = 0;
+        celulas = 0;
+
+        // Família sem repetições: [xi, pais atributos, classe]
+        int m = 0;
+        vars = garantir(vars, pais.length + 2);
+        vars[m++] = i;
+        q = domClasse;
+        long tamanho = (long) r * domClasse;
+        for (int p : pais) {
+            if (p == classIndex || p == i) continue;
+            vars[m++] = p;
+            q *= a.domain(p);
+            if (tamanho <= LIMITE_TABELA_DENSA) tamanho *= a.domain(p);
+        }
+        vars[m++] = classIndex;
+
+        // Tabela densa só se for pequena (em absoluto e face ao número de linhas); senão, esparsa
+        if (tamanho > LIMITE_TABELA_DENSA || tamanho > Math.max(1 << 16, 4L * a.length())) {
+            esparsa(a, m);
+        } else {
+            densa(a, m);
+        }
+    }
+
+    // Tabela conjunta (da cache de tabelas da amostra, ou numa passagem pelos dados)
+    private void densa(Amostra a, int m) {
+        TabelaContagens t = a.tabela(Arrays.copyOf(vars, m), true);
+        int px = t.posicao(vars[0]), pc = t.posicao(vars[m - 1]);
+        int sx = t.strides[px], sc = t.strides[pc];
+        int[] cont = t.contagens;
+
+        // Grupo j = índice da célula sem o dígito de xi
+        int G = cont.length / r;
+        grupoDenso = garantir(grupoDenso, G);
+        Arrays.fill(grupoDenso, 0, G, 0);
+        for (int idx = 0; idx < cont.length; idx++) {
+            int n = cont[idx];
+            if (n == 0) continue;
+            int x = (idx / sx) % r, c = (idx / sc) % domClasse;
+            grupoDenso[idx % sx + (idx / (sx * r)) * sx] += n;
+            nClasse[c] += n;
+            nFilhoClasse[x * domClasse + c] += n;
+        }
+
+        // Listas compactas (só configurações e células não vazias)
+        for (int g = 0; g < G; g++) {
+            if (grupoDenso[g] == 0) continue;
+            int base = g % sx + (g / sx) * sx * r;
+            for (int x = 0; x < r; x++) {
+                int n = cont[base + x * sx];
+                if (n > 0) novaCelula(n);
+            }
+            novoGrupo(grupoDenso[g]);
+        }
+    }
+
+    // Cada linha recebe uma chave (pais, c, xi) em base mista; ordenadas as chaves, as células e os
+    // grupos (pais, c) são sequências contíguas. Memória O(N), qualquer que seja o número de pais.
+    private void esparsa(Amostra a, int m) {
+        int N = a.length();
+        int i = vars[0], classIndex = vars[m - 1];
+        chaves = garantir(chaves, N);
+        Arrays.fill(chaves, 0, N, 0L);
+
+        // Configuração dos pais; quando a base mista deixa de caber num long, as chaves são
+        // substituídas pela sua ordem (< N), o que preserva a ordenação lexicográfica
+        long limite = 1;
+        for (int k = 1; k < m - 1; k++) {
+            int p = vars[k];
+            int dom = a.domain(p);
+            if (limite > Long.MAX_VALUE / dom) limite = comprimir(N);
+            for (int row = 0; row < N; row++) chaves[row] = chaves[row] * dom + a.valor(row, p);
+            limite *= dom;
+        }
+        if (limite > Long.MAX_VALUE / ((long) domClasse * r)) comprimir(N);
+
+        // N(c) e N(xi, c) são pequenas: contam-se na mesma passagem
+        for (int row = 0; row < N; row++) {
+            int c = a.valor(row, classIndex), x = a.valor(row, i);
+            chaves[row] = (chaves[row] * domClasse + c) * r + x;
+            nClasse[c]++;
+            nFilhoClasse[x * domClasse + c]++;
+        }
+        Arrays.sort(chaves, 0, N);
+
+        for (int g = 0; g < N; ) {
+            long grupo = chaves[g] / r;
+            int fim = g;
+            while (fim < N && chaves[fim] / r == grupo) fim++;
+            for (int row = g; row < fim; ) {
+                int e = row;
+                while (e < fim && chaves[e] == chaves[row]) e++;
+                novaCelula(e - row);
+                row = e;
+            }
+            novoGrupo(fim - g);
+            g = fim;
+        }
+    }
+
+    // Substitui cada chave pela sua posição entre as chaves distintas; devolve o número destas
+    private long comprimir(int N) {
+        distintas = garantir(distintas, N);
+        System.arraycopy(chaves, 0, distintas, 0, N);
+        Arrays.sort(distintas, 0, N);
+        int m = 0;
+        for (int k = 0; k < N; k++) {
+            if (m == 0 || distintas[k] != distintas[m - 1]) distintas[m++] = distintas[k];
+        }
+        for (int k = 0; k < N; k++) chaves[k] = Arrays.binarySearch(distintas, 0, m, chaves[k]);
+        return Math.max(m, 1);
+    }
+
+    private void novaCelula(int n) {
+        nCelula = garantir(nCelula, celulas + 1);
+        nCelula[celulas++] = n;
+    }
+
+    private void novoGrupo(int n) {
+        nGrupo = garantir(nGrupo, grupos + 1);
+        fimGrupo = garantir(fimGrupo, grupos + 1);
+        nGrupo[grupos] = n;
+        fimGrupo[grupos++] = celulas;
+    }
+
+    // Log-verosimilhança (bits) do nó dados os pais e a classe: Σ N(j,xi)·log2(N(j,xi) / N(j))
+    double logVerosimilhanca(double[] f) {
+        double s = 0.0;
+        for (int k = 0; k < celulas; k++) s += f[nCelula[k]];
+        for (int j = 0; j < grupos; j++) s -= f[nGrupo[j]];
+        return s;
+    }
+
+    // N·I(xi; pais | C) pela decomposição Σ N·log N, com f(n) = n·log2(n):
+    // Σ f(N(xi,pais,c)) + Σ f(N(c)) - Σ f(N(xi,c)) - Σ f(N(pais,c))
+    double informacaoMutua(double[] f) {
+        double s = logVerosimilhanca(f);
+        for (int c = 0; c < domClasse; c++) s += f[nClasse[c]];
+        for (int k = 0; k < r * domClasse; k++) s -= f[nFilhoClasse[k]];
+        return s;
+    }
+
+    private static int[] garantir(int[] a, int n) {
+        return (a.length >= n) ? a : Arrays.copyOf(a, Math.max(n, 2 * a.length));
+    }
+
+    private static long[] garantir(long[] a, int n) {
+        return (a.length >= n) ? a : Arrays.copyOf(a, Math.max(n, 2 * a.length));
+    }
+}
@@ -0,0 +1,19 @@
+package projeto_amc;
+
+// Utilitário de linha de comandos: converte um CSV para o formato binário (.amb)
+// Uso: java projeto_amc.ConverterAmostra letter.csv [letter.amb]
+public class ConverterAmostra {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Uso: ConverterAmostra <ficheiro.csv> [destino" + FormatoBinario.EXTENSAO + "]");
+            System.exit(1);
+        }
+        String origem = args[0];
+        String destino = (args.length > 1) ? args[1] : origem.replaceAll("\\.csv$", "") + FormatoBinario.EXTENSAO;
+
+        Amostra a = Amostra.carregar(origem, true);
+        a.gravarBinario(destino);
+        System.out.println(origem + " -> " + destino + " (" + a.length() + " x " + a.dim() + ")");
+    }
+}
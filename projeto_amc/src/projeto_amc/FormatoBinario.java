@@ -0,0 +1,87 @@
+package projeto_amc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Formato binário da amostra (.amb), little-endian:
+//   "AMCB" | versão | N | dim | maximos[dim] | largura[dim] (1, 2 ou 4 bytes) | colunas (N valores cada, pela ordem)
+// A leitura mapeia o ficheiro e copia cada coluna de uma vez, sem objetos por linha.
+final class FormatoBinario {
+
+    static final String EXTENSAO = ".amb";
+    private static final int MAGICO = 0x42434D41; // "AMCB" (little-endian)
+    private static final int VERSAO = 1;
+
+    private FormatoBinario() {}
+
+    static void gravar(String ficheiro, int[] maximos, Colunas colunas) throws IOException {
+        int dim = maximos.length;
+        int N = colunas.length();
+        ByteBuffer cab = ByteBuffer.allocate(16 + 5 * dim).order(ByteOrder.LITTLE_ENDIAN);
+        cab.putInt(MAGICO).putInt(VERSAO).putInt(N).putInt(dim);
+        for (int m : maximos) cab.putInt(m);
+        for (int v = 0; v < dim; v++) cab.put((byte) Colunas.largura(colunas.coluna(v)));
+        cab.flip();
+
+        try (FileChannel ch = FileChannel.open(Paths.get(ficheiro), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            escrever(ch, cab);
+            for (int v = 0; v < dim; v++) {
+                Object c = colunas.coluna(v);
+                ByteBuffer b = ByteBuffer.allocate(N * Colunas.largura(c)).order(ByteOrder.LITTLE_ENDIAN);
+                if (c instanceof byte[]) b.put((byte[]) c, 0, N);
+                else if (c instanceof short[]) b.asShortBuffer().put((short[]) c, 0, N);
+                else b.asIntBuffer().put((int[]) c, 0, N);
+                b.rewind();
+                escrever(ch, b);
+            }
+        }
+    }
+
+    private static void escrever(FileChannel ch, ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) ch.write(b);
+    }
+
+    static Amostra ler(String ficheiro) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(ficheiro), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt() != MAGICO) throw new IOException(ficheiro + " não é uma amostra binária");
+            int versao = buf.getInt();
+            if (versao != VERSAO) throw new IOException("Versão " + versao + " do formato não suportada");
+            int N = buf.getInt();
+            int dim = buf.getInt();
+
+            int[] maximos = new int[dim];
+            for (int v = 0; v < dim; v++) maximos[v] = buf.getInt();
+            int[] larguras = new int[dim];
+            for (int v = 0; v < dim; v++) larguras[v] = buf.get();
+
+            Object[] colunas = new Object[dim];
+            for (int v = 0; v < dim; v++) {
+                int capacidade = Math.max(N, 16);
+                if (larguras[v] == 1) {
+                    byte[] c = new byte[capacidade];
+                    buf.get(c, 0, N);
+                    colunas[v] = c;
+                } else if (larguras[v] == 2) {
+                    short[] c = new short[capacidade];
+                    buf.asShortBuffer().get(c, 0, N);
+                    buf.position(buf.position() + 2 * N);
+                    colunas[v] = c;
+                } else {
+                    int[] c = new int[capacidade];
+                    buf.asIntBuffer().get(c, 0, N);
+                    buf.position(buf.position() + 4 * N);
+                    colunas[v] = c;
+                }
+            }
+            return new Amostra(maximos, new Colunas(colunas, N));
+        }
+    }
+}
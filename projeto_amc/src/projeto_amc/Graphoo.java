@@ -1,49 +1,159 @@
 package projeto_amc;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.Queue;
 
 
 public class Graphoo implements java.io.Serializable {
     private static final long serialVersionUID = 1L;
     int n; // Número de nós
-    LinkedList<Integer>[] adj; //Lista de adjacência (guarda os filhos)
+    
+    // Matriz de adjacência em bitsets: pais[v] tem o bit u ligado sse existe a aresta u -> v; filhos[u] é a transposta.
+    // Testar uma aresta é O(1) e enumerar os pais custa O(popcount), sem Integer nem listas.
+    private transient long[][] pais;
+    private transient long[][] filhos;
+    private transient int palavras; // longs por linha da matriz
+    
+    // Fecho transitivo opcional: desc[u] tem o bit v ligado sse há um caminho não vazio u -> ... -> v.
+    // Mantido a cada alteração de arestas, torna connected() uma consulta de um bit (null = desligado).
+    private transient long[][] desc;
+    
+    // Cache de scores de família partilhada entre cópias do grafo (null = sem cache)
+    private transient CacheScores cache;
+    
+    // Função de score usada na pesquisa (null = MDL)
+    private transient Score score;
+    
+    // Hash de Zobrist da estrutura: XOR das chaves das arestas, atualizado a cada aresta adicionada ou removida.
+    // O segundo usa chaves independentes: os dois juntos (128 bits) servem para confirmar uma igualdade.
+    private transient long hash, hash2;
+    
+    // Forma serializada: a lista de adjacência original (n, adj), para os .bn já gravados continuarem legíveis
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("n", int.class),
+        new ObjectStreamField("adj", LinkedList[].class)
+    };
 
     //Cria um grafo com n nós, mas sem nenhuma aresta
-    @SuppressWarnings("unchecked")
     public Graphoo(int n) { 
         this.n = n;
-        this.adj = new LinkedList[n]; 
-        
-        for (int i = 0; i < n; i++) {
-            this.adj[i] = new LinkedList<Integer>(); // Acesso direto com [i]
-        }
+        this.palavras = (n + 63) >>> 6;
+        this.pais = new long[n][palavras];
+        this.filhos = new long[n][palavras];
     }
     
    //Cria um novo grafo que é uma cópia exata do grafo original
-    @SuppressWarnings("unchecked")
     public Graphoo(Graphoo g) { 
         this.n = g.n;
-        this.adj = new LinkedList[n];
+        this.palavras = g.palavras;
+        this.pais = new long[n][];
+        this.filhos = new long[n][];
         
         for (int i = 0; i < n; i++) {
-            // Copia a lista de cada nó
-        	this.adj[i] = new LinkedList<>(g.adj[i]);
-        	}
+            // Copia as linhas da matriz de cada nó
+            this.pais[i] = g.pais[i].clone();
+            this.filhos[i] = g.filhos[i].clone();
+        }
+        this.cache = g.cache;
+        this.score = g.score;
+        this.hash = g.hash;
+        this.hash2 = g.hash2;
+        if (g.desc != null) {
+            this.desc = new long[n][];
+            for (int i = 0; i < n; i++) this.desc[i] = g.desc[i].clone();
+        }
     }
     
 
     // adiciona ao grafo uma aresta de um nó para o outro
     public void add_edge(int node1, int node2) { // node1 (pai), node2 (filho) 
-        if (!adj[node1].contains(node2)) { 
-            adj[node1].add(node2);
+        if (!has_edge(node1, node2)) {
+            hash ^= chaveAresta(node1, node2);
+            hash2 ^= chaveVerificacao(node1, node2);
+        }
+        if (desc != null && !has_edge(node1, node2)) {
+            // node1 e os seus antecessores passam a alcançar node2 e os descendentes de node2
+            long[] novos = desc[node2].clone();
+            novos[node2 >>> 6] |= 1L << node2;
+            for (int x = 0; x < n; x++) {
+                if (x == node1 || (desc[x][node1 >>> 6] & (1L << node1)) != 0) {
+                    for (int w = 0; w < palavras; w++) desc[x][w] |= novos[w];
+                }
+            }
         }
+        pais[node2][node1 >>> 6] |= 1L << node1;
+        filhos[node1][node2 >>> 6] |= 1L << node2;
     }
     
 
     // Retira uma aresta
     public void remove_edge(int node1, int node2) {
-        adj[node1].remove((Integer) node2); 
+        boolean existia = has_edge(node1, node2);
+        if (existia) {
+            hash ^= chaveAresta(node1, node2);
+            hash2 ^= chaveVerificacao(node1, node2);
+        }
+        pais[node2][node1 >>> 6] &= ~(1L << node1);
+        filhos[node1][node2 >>> 6] &= ~(1L << node2);
+        
+        if (desc != null && existia) {
+            // Só node1 e os seus antecessores podem perder descendentes: recalculam-se a partir dos filhos
+            boolean[] afetado = new boolean[n];
+            for (int x = 0; x < n; x++) {
+                afetado[x] = x == node1 || (desc[x][node1 >>> 6] & (1L << node1)) != 0;
+            }
+            boolean[] feito = new boolean[n];
+            for (int x = 0; x < n; x++) {
+                if (afetado[x]) recalcularFecho(x, afetado, feito);
+            }
+        }
+    }
+    
+    // desc[x] = união de {c} e desc[c] para os filhos c de x (os não afetados já estão corretos)
+    private void recalcularFecho(int x, boolean[] afetado, boolean[] feito) {
+        if (!afetado[x] || feito[x]) return;
+        long[] d = desc[x];
+        Arrays.fill(d, 0L);
+        for (int w = 0; w < palavras; w++) {
+            for (long b = filhos[x][w]; b != 0; b &= b - 1) {
+                int c = (w << 6) + Long.numberOfTrailingZeros(b);
+                recalcularFecho(c, afetado, feito);
+                d[c >>> 6] |= 1L << c;
+                for (int v = 0; v < palavras; v++) d[v] |= desc[c][v];
+            }
+        }
+        feito[x] = true;
+    }
+    
+
+    // Hash da estrutura (conjunto de arestas): grafos iguais têm o mesmo hash, em O(1)
+    public long hashEstrutura() {
+        return hash;
+    }
+    
+    // Segundo hash da estrutura, independente do primeiro (para confirmar que dois grafos são iguais)
+    public long hashVerificacao() {
+        return hash2;
+    }
+    
+    // Chave de Zobrist da aresta u -> v (mistura splitmix64, sem tabela: serve para qualquer n)
+    private static long chaveAresta(int u, int v) {
+        long z = (((long) u << 32) | v) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    // Chave da aresta para o segundo hash: outra disposição da entrada e a mistura final do MurmurHash3
+    private static long chaveVerificacao(int u, int v) {
+        long z = ((((long) v << 32) | u) * 0xD6E8FEB86659FD93L) ^ 0x632BE59BD9B4E019L;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
     }
     
 
@@ -54,24 +164,68 @@ public class Graphoo implements java.io.Serializable {
     }
     
     
-    // Verifica se há um caminho (não vazio) de um nó para o outro (busca em largura)
+    // Verifica se existe a aresta node1 -> node2
+    public boolean has_edge(int node1, int node2) {
+        return (pais[node2][node1 >>> 6] & (1L << node1)) != 0;
+    }
+    
+    
+    // Usa (e partilha com as cópias) uma cache de scores de família
+    void setScoreCache(CacheScores cache) {
+        this.cache = cache;
+    }
+    
+    CacheScores getScoreCache() {
+        return cache;
+    }
+    
+    // Score usado por score() e scoreDelta() (MDL por omissão); as cópias herdam-no
+    public void setScore(Score score) {
+        this.score = score;
+    }
+    
+    public Score getScore() {
+        return (score == null) ? Score.MDL : score;
+    }
+    
+    
+    // Liga/desliga a manutenção do fecho transitivo (ao ligar, é calculado a partir das arestas atuais)
+    public void trackReachability(boolean on) {
+        if (!on) {
+            desc = null;
+            return;
+        }
+        if (desc != null) return;
+        desc = new long[n][palavras];
+        boolean[] todos = new boolean[n];
+        Arrays.fill(todos, true);
+        boolean[] feito = new boolean[n];
+        for (int x = 0; x < n; x++) recalcularFecho(x, todos, feito);
+    }
+    
+    
+    // Verifica se há um caminho (não vazio) de um nó para o outro.
+    // Com o fecho transitivo ativo é um bit; caso contrário, busca em profundidade sobre os bitsets.
     public boolean connected(int startNode, int endNode) {
-        boolean[] visited = new boolean[n]; //Guarda os nós já visitados
-        Queue<Integer> queue = new LinkedList<>(); //Fila que guarda a ordem de visita dos nós
+        if (desc != null) return (desc[startNode][endNode >>> 6] & (1L << endNode)) != 0;
         
-        visited[startNode] = true; 
-        queue.add(startNode); 
+        long[] visited = new long[palavras]; //Guarda os nós já visitados
+        int[] stack = new int[n];            //Nós por expandir
+        int top = 0;
         
-        while (!queue.isEmpty()) { // Enquanto existirem nós para analisar
-            int curr = queue.poll(); // Retira o último nó da fila e guarda-o na variável 'curr' (current) 
+        visited[startNode >>> 6] |= 1L << startNode;
+        stack[top++] = startNode;
+        
+        while (top > 0) { // Enquanto existirem nós para analisar
+            long[] f = filhos[stack[--top]];
+            if ((f[endNode >>> 6] & (1L << endNode)) != 0) return true; // Encontrou caminho
             
-            // Verifica vizinhos
-            for (int neighbor : adj[curr]) { //Neighbor = filhos de curr
-                if (neighbor == endNode) return true; // Encontrou caminho
-                
-                if (!visited[neighbor]) { // neighbor != endnode
-                    visited[neighbor] = true;
-                    queue.add(neighbor); // Adiciona para avaliar futuros caminhos
+            for (int w = 0; w < palavras; w++) {
+                long novos = f[w] & ~visited[w]; // Filhos ainda não visitados
+                visited[w] |= novos;
+                while (novos != 0) {
+                    stack[top++] = (w << 6) + Long.numberOfTrailingZeros(novos);
+                    novos &= novos - 1;
                 }
             }
         }
@@ -79,16 +233,68 @@ public class Graphoo implements java.io.Serializable {
     }
 
     
-    // Retorna a lista de pais de um nó
-    public LinkedList<Integer> parents(int node) {
-        LinkedList<Integer> parentsList = new LinkedList<>();
-        
+    // Retorna os pais de um nó (por ordem crescente)
+    public int[] parents(int node) {
+        return indices(pais[node]);
+    }
+    
+    // Bits ligados de um bitset, por ordem crescente
+    static int[] indices(long[] bits) {
+        int c = 0;
+        for (long b : bits) c += Long.bitCount(b);
+        int[] r = new int[c];
+        int k = 0;
+        for (int w = 0; w < bits.length; w++) {
+            for (long b = bits[w]; b != 0; b &= b - 1) r[k++] = (w << 6) + Long.numberOfTrailingZeros(b);
+        }
+        return r;
+    }
+    
+    // Número de pais de um nó
+    public int parentCount(int node) {
+        int c = 0;
+        for (long b : pais[node]) c += Long.bitCount(b);
+        return c;
+    }
+    
+    // Retorna os filhos de um nó (por ordem crescente)
+    public int[] children(int node) {
+        long[] f = filhos[node];
+        int c = 0;
+        for (long b : f) c += Long.bitCount(b);
+        int[] r = new int[c];
+        int k = 0;
+        for (int w = 0; w < palavras; w++) {
+            for (long b = f[w]; b != 0; b &= b - 1) r[k++] = (w << 6) + Long.numberOfTrailingZeros(b);
+        }
+        return r;
+    }
+    
+    
+    // Serialização no formato antigo (lista de adjacência de filhos)
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        @SuppressWarnings({"unchecked", "rawtypes"}) // Não há arrays de genéricos; o formato exige LinkedList[]
+        LinkedList<Integer>[] adj = new LinkedList[n];
         for (int i = 0; i < n; i++) {
-            if (adj[i].contains(node)) { 
-                parentsList.add(i);
-            }
+            adj[i] = new LinkedList<>();
+            for (int c : children(i)) adj[i].add(c);
+        }
+        ObjectOutputStream.PutField campos = out.putFields();
+        campos.put("n", n);
+        campos.put("adj", adj);
+        out.writeFields();
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField campos = in.readFields();
+        n = campos.get("n", 0);
+        palavras = (n + 63) >>> 6;
+        pais = new long[n][palavras];
+        filhos = new long[n][palavras];
+        LinkedList<?>[] adj = (LinkedList<?>[]) campos.get("adj", null);
+        for (int i = 0; i < n; i++) {
+            for (Object c : adj[i]) add_edge(i, (Integer) c);
         }
-        return parentsList;
     }
     
     
@@ -97,76 +303,121 @@ public class Graphoo implements java.io.Serializable {
     // Operações: 0 = remover; 1 = inverter; 2 = adicionar
     
     public double MDLdelta(Amostra a, int node1, int node2, int op) {
+        return MDLdelta(a, node1, node2, op, 2);
+    }
+    
+    // k: número máximo de pais de cada atributo, além da classe
+    public double MDLdelta(Amostra a, int node1, int node2, int op, int k) {
+        return delta(Score.MDL, a, node1, node2, op, k);
+    }
+    
+    // Variação do score do grafo (getScore) causada pela operação
+    public double scoreDelta(Amostra a, int node1, int node2, int op, int k) {
+        return delta(getScore(), a, node1, node2, op, k);
+    }
+    
+    // Não altera o grafo: os scores depois da operação calculam-se sobre cópias dos conjuntos de pais,
+    // por isso várias threads podem avaliar operações sobre o mesmo grafo em simultâneo.
+    private double delta(Score sc, Amostra a, int node1, int node2, int op, int k) {
+        if (!operacaoValida(node1, node2, op, k)) return Double.NEGATIVE_INFINITY; // Operação inválida
+        return variacao(sc, a, node1, node2, op);
+    }
+    
+    // A operação mantém o grafo acíclico e respeita o limite de k pais (além da classe)?
+    boolean operacaoValida(int node1, int node2, int op, int k) {
+        int maxParents = k + 1; //(k + classe)
+        
+        // Remover aresta (node1 -> node2): a aresta tem de existir
+        if (op == 0) return has_edge(node1, node2);
+        
+        // Inverter aresta (node1 -> node2 passa a ser node2 -> node1)
+        if (op == 1) {
+        	if (!has_edge(node1, node2)) return false; // Node2 não é filho de node1
+        	
+            // Para inverter, remove-se node1->node2 e adiciona-se node2->node1.
+            // Tem de se verificar que node2->node1 não cria ciclo (grafo acíclico):
+            // sem a aresta direta, continua a haver caminho node1 -> ... -> node2?
+            if (outroCaminho(node1, node2)) return false; // Caso haja + que 1 connecção forma-se um grafo cíclico
+            
+            // Verificar limite de pais do node1 
+            return parentCount(node1) < maxParents;
+        }
+        
+        // Inserir aresta (node1 -> node2)
+        if (op == 2) {
+        	// 1. Valida se já existe caminho node2 -> node1
+            if (connected(node2, node1)) return false;
+            
+            // 2. Valida limite de pais, porque o node2 vai ganhar um pai
+            if (parentCount(node2) >= maxParents) return false;
+            
+            // 3. Valida se o node1 já é pai do node2
+            return !has_edge(node1, node2);
+        }
+        return false;
+    }
+    
+    // Variação do score do grafo (getScore) sem validar a operação. Só depende das famílias que
+    // mudam: a de node2 (remover, adicionar) ou as de node1 e node2 (inverter).
+    double variacaoScore(Amostra a, int node1, int node2, int op) {
+        return variacao(getScore(), a, node1, node2, op);
+    }
+    
+    private double variacao(Score sc, Amostra a, int node1, int node2, int op) {
         double delta = 0.0; //variação 
-        int maxParents = 3; //(k <= 2 + classe)
+        int w1 = node1 >>> 6, w2 = node2 >>> 6;
+        long b1 = 1L << node1, b2 = 1L << node2;
 
         // Remover aresta (node1 -> node2): node2 perde um pai; node1 não muda.
         if (op == 0) {
-        	
-        	//Verifica se a aresta não existe
-        	if (!adj[node1].contains(node2)) return Double.NEGATIVE_INFINITY; // Operação inválida
-        	
-            double scoreBefore = scoreNode(node2, a);
+            double scoreBefore = scoreNode(node2, a, sc);
             
-            remove_edge(node1, node2); // Aplica temporariamente
-            double scoreAfter = scoreNode(node2, a);
-            add_edge(node1, node2);    // Reverte/ restaura grafo inicial
+            long[] depois = pais[node2].clone(); // Pais de node2 sem node1
+            depois[w1] &= ~b1;
+            double scoreAfter = scoreNode(node2, depois, a, sc);
             
             delta = scoreAfter - scoreBefore;
         }
         
      // Inverter aresta (node1 -> node2 passa a ser node2 -> node1): node2 perde um pai; o node1 ganha um pai (ambos mudam)
         else if (op == 1) {
-        	
-        	if (!adj[node1].contains(node2)) return Double.NEGATIVE_INFINITY; // Node2 não é filho de node1
-
-            // Para inverter, remove-se node1->node2 e adiciona-se node2->node1.
-            // Tem de se verificar que node2->node1 não cria ciclo (grafo acíclico)
-            remove_edge(node1, node2);
-            boolean createsCycle = connected(node1, node2); // Verifica se ainda há conecção entre os dois nós
-            add_edge(node1, node2); // Repor para calcular score inicial
-
-            if (createsCycle) return Double.NEGATIVE_INFINITY; // Caso haja + que 1 connecção forma-se um grafo cíclico
+            double scoreBefore = scoreNode(node1, a, sc) + scoreNode(node2, a, sc);
             
-            // Verificar limite de pais do node1 
-            if (parents(node1).size() >= maxParents) return Double.NEGATIVE_INFINITY;
-            
-            
-            double scoreBefore = scoreNode(node1, a) + scoreNode(node2, a);
-            
-            invert_edge(node1, node2); 
-            double scoreAfter = scoreNode(node1, a) + scoreNode(node2, a);
-            invert_edge(node2, node1); 
+            long[] depois1 = pais[node1].clone(); // node1 ganha node2
+            depois1[w2] |= b2;
+            long[] depois2 = pais[node2].clone(); // node2 perde node1
+            depois2[w1] &= ~b1;
+            double scoreAfter = scoreNode(node1, depois1, a, sc) + scoreNode(node2, depois2, a, sc);
             
             delta = scoreAfter - scoreBefore;
         }
         
         // Inserir aresta (node1 -> node2): node2 ganha um pai; O node1 não muda.
         else if (op == 2) {
-        	
-        	// 1. Valida se já existe caminho node2 -> node1
-            if (connected(node2, node1)) return Double.NEGATIVE_INFINITY;
+            double scoreBefore = scoreNode(node2, a, sc);
             
-            // 2. Valida limite de pais, porque o node2 vai ganhar um pai
-            if (parents(node2).size() >= maxParents) return Double.NEGATIVE_INFINITY;
-            
-            // 3. Valida se o node1 já é pai do node2
-            if (adj[node1].contains(node2)) return Double.NEGATIVE_INFINITY;
-        	
-            double scoreBefore = scoreNode(node2, a);
-            
-            add_edge(node1, node2);   
-            double scoreAfter = scoreNode(node2, a);
-            remove_edge(node1, node2); 
+            long[] depois = pais[node2].clone(); // node2 ganha node1
+            depois[w1] |= b1;
+            double scoreAfter = scoreNode(node2, depois, a, sc);
             
             delta = scoreAfter - scoreBefore;
         }
-        
-        
 
         return delta;
     }
     
+    // Há caminho node1 -> ... -> node2 que não seja a aresta direta? (algum outro filho de node1 chega a node2)
+    private boolean outroCaminho(int node1, int node2) {
+        long[] f = filhos[node1];
+        for (int w = 0; w < palavras; w++) {
+            for (long b = f[w]; b != 0; b &= b - 1) {
+                int c = (w << 6) + Long.numberOfTrailingZeros(b);
+                if (c != node2 && connected(c, node2)) return true;
+            }
+        }
+        return false;
+    }
+    
     // ----------------------------------------------------------------
     // 3. Cálculo II (Interaction/ Mutual Information): Verosimilhança
     // Valor elevado: pais explicam o comportamento do nó
@@ -174,130 +425,56 @@ public class Graphoo implements java.io.Serializable {
     // ----------------------------------------------------------------
     
     double InteractionInformation(int i, Amostra a) {
-        int classIndex = a.dim() - 1; // Nó da classe: última coluna
-        LinkedList<Integer> parentsList = parents(i);
-        double nrSamples = a.length(); // Número de exemplos/ linhas
-        double sum = 0.0;
-        
-     // --- Caso 0 Pais ---
-        if (parentsList.size() == 0) {
-            return 0.0;
-        }
-
-     // --- Caso 1 Pai ---
-        if (parentsList.size() == 1) {
-            int parentNode = parentsList.get(0);
-
-            // Loops com nomes claros (Child Value, Parent Value, Class Value)
-            for (int childVal = 0; childVal < a.domain(i); childVal++) {
-                for (int parentVal = 0; parentVal < a.domain(parentNode); parentVal++) {
-                    for (int classVal = 0; classVal < a.domain(classIndex); classVal++) {
-                        
-                        // N(xi, pai, classe) -> Contagem conjunta dos 3
-                        double countChildParentClass = a.count(i, parentNode, classIndex, childVal, parentVal, classVal);
-                        
-                        if (countChildParentClass != 0) {
-                            // N(c) -> Contagem só da classe
-                            double countClass = a.count(classIndex, classVal);               
-                            // N(xi, c) -> Contagem Filho + Classe
-                            double countChildClass = a.count(i, classIndex, childVal, classVal);      
-                            // N(pai, c) -> Contagem Pai + Classe
-                            double countParentClass = a.count(parentNode, classIndex, parentVal, classVal);    
-                            
-                            // Fórmula
-                            double term = countChildParentClass * countClass / (countChildClass * countParentClass);
-                            
-                            // Acumula o resultado na variável 's'
-                            sum = sum + countChildParentClass * log2(term);
-                        }
-                    }
-                }
-            }
-        }
-
-        // --- Caso 2 Pais ---
-        if (parentsList.size() == 2) {
-            int parent1 = parentsList.get(0);
-            int parent2 = parentsList.get(1);
-
-            for (int childVal = 0; childVal < a.domain(i); childVal++) {
-                for (int p1Val = 0; p1Val < a.domain(parent1); p1Val++) {      
-                    for (int p2Val = 0; p2Val < a.domain(parent2); p2Val++) {  
-                        for (int classVal = 0; classVal < a.domain(classIndex); classVal++) {
-                            
-                            // Contagem conjunta total (Filho + Pai1 + Pai2 + Classe)
-                            double countChildBothParentsClass = a.count(i, parent1, parent2, classIndex, childVal, p1Val, p2Val, classVal);
-                            
-                            if (countChildBothParentsClass != 0) {
-                                double countClass = a.count(classIndex, classVal);
-                                
-                                double countChildClass = a.count(i, classIndex, childVal, classVal); 
-                                
-                                // Contagem dos dois pais com a classe
-                                double countBothParentsClass = a.count(parent1, parent2, classIndex, p1Val, p2Val, classVal); 
-
-                                // Fórmula adaptada
-                                double term = countChildBothParentsClass * countClass / (countChildClass * countBothParentsClass);
-                                sum = sum + countChildBothParentsClass * log2(term);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        
-        // Retorna a soma 's' dividida pelo número de exemplos 'nrSamples'
-        return sum / nrSamples;   
+        // Uma só tabela conjunta N(xi, pais, classe) (densa, ou esparsa se for grande),
+        // de onde saem as marginais N(c), N(xi, c) e N(pais, c)
+        return ScoreFamilia.informacaoMutua(a, i, parents(i));
     }
     
     // ---------------------------------------------------------------
     // 3. ScoreNode: Combina Verosimilhança e Penalização
     // Fórmula (Maximizar): MDLs = LL - Penalização (complexidade)
     // Só aceita um novo pai se o ganho de informação for superior ao "custo" de aumento da complexidade
+    // O cálculo está na função de score (ScoreFamilia: Mdl, Bic, Aic, Bdeu, Fnml)
     // ---------------------------------------------------------------
-    private double scoreNode(int i, Amostra a) {
-    	
-        // LL: Verosimilhança; 
-    	// Mede o quão bem a rede descreve os dados
-        double LL = a.length() * InteractionInformation(i, a); 
-
-        int classIndex = a.dim() - 1; // Última coluna corresponde à variável da classe
-        LinkedList<Integer> parentsList = parents(i);
+    private double scoreNode(int i, Amostra a, Score sc) {
+        return scoreNode(i, pais[i], a, sc);
+    }
+    
+    // Score do nó i com o conjunto de pais dado (bitset), que pode não ser o atual
+    private double scoreNode(int i, long[] paisNo, Amostra a, Score sc) {
+        if (cache == null || !cache.serve(a, sc)) return sc.familia(a, i, indices(paisNo));
         
-        // Cálculo da Penalização (Complexidade)
-        double domainParents = 1.0;
-        for (int p : parentsList) { // Para cada p na parentsList
-            domainParents *= a.domain(p); // Produto do domínio dos pais (nr de valores que os vários p's podem assumir)
+        // Família já avaliada (noutra operação, iteração ou restart)?
+        double s = cache.procurar(i, paisNo);
+        if (Double.isNaN(s)) {
+            s = sc.familia(a, i, indices(paisNo));
+            cache.guardar(i, paisNo, s);
         }
-
-        // Número de parâmetros livres na tabela de probabilidade condicional
-        double params = (a.domain(i) - 1) * domainParents * a.domain(classIndex);
-        
-        // Penalidade MDL padrão
-        // Penaliza estruturas complexas para evitar overfitting
-        double penalty = (params * log2(a.length())) / 2.0;
-
-        return LL - penalty; // Obj: Maximizar valor 
+        return s;
     }
     
     
     // Calcula o score MDL (Minimum description length) total da amostra 
     public double MDL(Amostra a) {
-        double totalMDL = 0.0;
+        return score(a, Score.MDL);
+    }
+    
+    // Score total com a função de score do grafo (getScore)
+    public double score(Amostra a) {
+        return score(a, getScore());
+    }
+    
+    private double score(Amostra a, Score sc) {
+        double total = 0.0;
         
         //Assume-se que a classe é a última variável e não se calcula os pais dela
         for (int i = 0; i < a.dim() - 1; i++) {
-            totalMDL += scoreNode(i, a); // soma do scoreNode de todos os nós 
+            total += scoreNode(i, a, sc); // soma do scoreNode de todos os nós 
         }
-        return totalMDL;
+        return total;
     }
 
     
-    
-    private double log2(double x) {
-        return Math.log(x) / Math.log(2);
-    }
-    
 
     // Apresentação o grafo na consola 
     @Override
@@ -305,7 +482,7 @@ public class Graphoo implements java.io.Serializable {
         StringBuilder sb = new StringBuilder();
         sb.append("Graph [n=" + n + "]\n"); // Indica nr total de nós
         for (int i = 0; i < n; i++) {
-        	sb.append("Node " + i + " points to -> " + adj[i] + "\n"); // Associa cada nó à sua lista de adjacência
+        	sb.append("Node " + i + " points to -> " + Arrays.toString(children(i)) + "\n"); // Associa cada nó aos seus filhos
         }
         return sb.toString();
     }
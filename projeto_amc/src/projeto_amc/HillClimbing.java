@@ -0,0 +1,77 @@
+package projeto_amc;
+
+import java.util.stream.IntStream;
+
+// Hill Climbing: aplica a melhor operação enquanto houver melhoria (ou até esgotar o orçamento).
+// Com a cache de deltas de PesquisaLocal, cada passo recalcula O(n) scores em vez de O(n²).
+// O caminho a partir de um grafo é determinístico (sem candidatos), por isso, com as estruturas
+// partilhadas entre restarts, a subida para ao chegar a um grafo por onde outro restart já passou:
+// daí em diante seguiria o mesmo caminho até ao mesmo ótimo (não com limite de avaliações, ver cortada).
+final class HillClimbing extends PesquisaLocal {
+
+    HillClimbing(Graphoo g, Amostra T, int k) {
+        this(g, T, k, Orcamento.ILIMITADO);
+    }
+
+    HillClimbing(Graphoo g, Amostra T, int k, Orcamento orcamento) {
+        super(g, T, k, orcamento);
+    }
+
+    @Override
+    int executar() {
+        int passos = 0;
+        while (!esgotado() && !cortada()) {
+            // Cada u é avaliado em paralelo (cada tarefa só escreve a linha u das caches)
+            // e a redução escolhe o maior delta; empates pela primeira operação na ordem sequencial
+            Movimento best = IntStream.range(0, n).parallel()
+                    .mapToObj(this::melhorDe)
+                    .reduce(Movimento.NENHUM, Movimento::melhor);
+            if (best.op == -1) {
+                // Ótimo local entre os candidatos: continua se a reestimação trouxer candidatos novos
+                if (reestimarCandidatos()) continue;
+                break;
+            }
+            aplicar(best);
+            passos++;
+            novoMelhor(); // Cada passo melhora o score
+        }
+        return passos;
+    }
+
+    @Override
+    protected boolean cortaDuplicadas() {
+        return !usaCandidatos();
+    }
+
+    // Melhor operação sobre as arestas u -> v (v = 0..n-1), ou NENHUM
+    private Movimento melhorDe(int u) {
+        Movimento best = Movimento.NENHUM;
+        if (u == classIndex) return best;
+
+        for (int v = 0; v < n; v++) {
+            // Ignorar arestas da classe ou para a classe
+            if (u == v || v == classIndex) continue;
+
+            if (!g.has_edge(u, v)) {
+                // Tentar ADICIONAR (op2)
+                if (candidato(u, v) && g.operacaoValida(u, v, 2, k)) {
+                    double delta = delta(u, v, 2);
+                    if (delta > best.delta) best = new Movimento(delta, 2, u, v, n);
+                }
+            } else {
+                // Tentar REMOVER (op0)
+                double deltaRem = delta(u, v, 0);
+                if (deltaRem > best.delta) best = new Movimento(deltaRem, 0, u, v, n);
+
+                // Tentar INVERTER (op1). A versão original exigia !g.connected(u, v), que é sempre
+                // falso com a aresta u -> v presente, por isso nunca invertia; a partir daqui as
+                // inversões são avaliadas (operacaoValida só rejeita as que criam ciclos).
+                if (candidato(v, u) && g.operacaoValida(u, v, 1, k)) {
+                    double deltaInv = delta(u, v, 1);
+                    if (deltaInv > best.delta) best = new Movimento(deltaInv, 1, u, v, n);
+                }
+            }
+        }
+        return best;
+    }
+}
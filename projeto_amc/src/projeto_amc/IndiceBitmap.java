@@ -0,0 +1,71 @@
+package projeto_amc;
+
+import java.util.Arrays;
+
+// Índice bitmap da amostra: um bitset (long[]) por par (variável, valor), com o bit i ligado
+// quando a linha i tem esse valor. Uma conjunção de igualdades é um AND palavra a palavra.
+final class IndiceBitmap {
+
+    private long[][][] bits; // bits[var][val][palavra]
+    private int n;           // Número de linhas indexadas
+
+    IndiceBitmap(Amostra a) {
+        int dim = a.dim();
+        int palavras = Math.max(1, (a.length() + 63) >>> 6);
+        bits = new long[dim][][];
+        for (int v = 0; v < dim; v++) bits[v] = new long[a.domain(v)][palavras];
+        for (int i = 0; i < a.length(); i++) add(a.element(i));
+    }
+
+    // Indexa mais uma linha (no fim)
+    void add(int[] linha) {
+        int palavra = n >>> 6;
+        for (int v = 0; v < bits.length; v++) {
+            int val = linha[v];
+            if (val >= bits[v].length) { // Valor novo: alarga o domínio desta variável
+                long[][] maior = Arrays.copyOf(bits[v], val + 1);
+                for (int x = bits[v].length; x <= val; x++) maior[x] = new long[bits[v][0].length];
+                bits[v] = maior;
+            }
+            if (palavra >= bits[v][val].length) {
+                for (int x = 0; x < bits[v].length; x++) bits[v][x] = Arrays.copyOf(bits[v][x], 2 * palavra);
+            }
+            bits[v][val][palavra] |= 1L << (n & 63);
+        }
+        n++;
+    }
+
+    int contar(int var, int val) {
+        if (val < 0 || val >= bits[var].length) return 0;
+        long[] b = bits[var][val];
+        int total = 0;
+        for (long w : b) total += Long.bitCount(w);
+        return total;
+    }
+
+    int contar(int[] var, int[] val) {
+        if (var.length == 0) return n;
+        if (var.length == 1) return contar(var[0], val[0]);
+        long[][] b = new long[var.length][];
+        for (int k = 0; k < var.length; k++) {
+            if (val[k] < 0 || val[k] >= bits[var[k]].length) return 0;
+            b[k] = bits[var[k]][val[k]];
+        }
+        int palavras = b[0].length;
+        int total = 0;
+        if (b.length == 2) {
+            long[] b0 = b[0], b1 = b[1];
+            for (int w = 0; w < palavras; w++) total += Long.bitCount(b0[w] & b1[w]);
+        } else if (b.length == 3) {
+            long[] b0 = b[0], b1 = b[1], b2 = b[2];
+            for (int w = 0; w < palavras; w++) total += Long.bitCount(b0[w] & b1[w] & b2[w]);
+        } else {
+            for (int w = 0; w < palavras; w++) {
+                long x = b[0][w];
+                for (int k = 1; k < b.length && x != 0; k++) x &= b[k][w];
+                total += Long.bitCount(x);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,69 @@
+package projeto_amc;
+
+import java.util.Arrays;
+
+// Armazenamento por linhas em blocos de tamanho fixo: acrescentar uma linha é O(1) amortizado
+// e nunca copia as linhas já guardadas (só o diretório de blocos cresce, com N / BLOCO entradas).
+final class Linhas implements java.io.Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int BITS = 12;
+    static final int BLOCO = 1 << BITS; // 4096 linhas por bloco
+    private static final int MASCARA = BLOCO - 1;
+
+    private int[][][] blocos; // blocos[b][i] = linha b * BLOCO + i
+    private int n;
+
+    Linhas() {
+        this(BLOCO);
+    }
+
+    Linhas(int capacidade) {
+        blocos = new int[Math.max(1, (capacidade + BLOCO - 1) >>> BITS)][][];
+    }
+
+    int length() {
+        return n;
+    }
+
+    int[] get(int i) {
+        return blocos[i >>> BITS][i & MASCARA];
+    }
+
+    void add(int[] v) {
+        int b = n >>> BITS;
+        if (b == blocos.length) blocos = Arrays.copyOf(blocos, 2 * b);
+        if (blocos[b] == null) blocos[b] = new int[BLOCO][];
+        blocos[b][n & MASCARA] = v;
+        n++;
+    }
+
+    // Preenche a tabela com as linhas [inicio, fim)
+    void preencher(TabelaContagens t, int inicio, int fim) {
+        for (int i = inicio; i < fim; ) {
+            int[][] bloco = blocos[i >>> BITS];
+            int e = Math.min(fim, (i | MASCARA) + 1);
+            for (int j = i & MASCARA, m = j + (e - i); j < m; j++) t.adicionar(bloco[j]);
+            i = e;
+        }
+    }
+
+    // Número de linhas em [inicio, fim) que satisfazem var[k] == val[k] para todo o k
+    int contar(int[] var, int[] val, int inicio, int fim) {
+        int r = 0;
+        int numVars = var.length;
+        for (int i = inicio; i < fim; i++) {
+            int[] linha = get(i);
+            boolean match = true;
+            for (int k = 0; k < numVars; k++) {
+                if (linha[var[k]] != val[k]) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) r++;
+        }
+        return r;
+    }
+}
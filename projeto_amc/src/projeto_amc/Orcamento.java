@@ -0,0 +1,53 @@
+package projeto_amc;
+
+// Orçamento de uma pesquisa: prazo de tempo real e/ou número máximo de avaliações de delta.
+// O prazo é absoluto (partilhado por todos os restarts); as avaliações contam por pesquisa,
+// por isso um orçamento só de avaliações dá sempre o mesmo resultado. É verificado entre passos:
+// o passo em curso (uma vizinhança no Hill Climbing) pode passar um pouco do limite.
+final class Orcamento {
+
+    static final Orcamento ILIMITADO = new Orcamento(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long prazo;         // System.nanoTime() limite (Long.MAX_VALUE = sem prazo)
+    private final long maxAvaliacoes; // Long.MAX_VALUE = sem limite
+
+    private Orcamento(long prazo, long maxAvaliacoes) {
+        this.prazo = prazo;
+        this.maxAvaliacoes = maxAvaliacoes;
+    }
+
+    // segundos <= 0 ou avaliacoes <= 0: sem esse limite
+    static Orcamento de(double segundos, long avaliacoes) {
+        long prazo = (segundos > 0) ? System.nanoTime() + (long) (segundos * 1e9) : Long.MAX_VALUE;
+        return new Orcamento(prazo, (avaliacoes > 0) ? avaliacoes : Long.MAX_VALUE);
+    }
+
+    // Mesmo prazo; as avaliações divididas igualmente pelos restarts
+    Orcamento porRestart(int restarts) {
+        if (maxAvaliacoes == Long.MAX_VALUE) return this;
+        return new Orcamento(prazo, Math.max(1, maxAvaliacoes / restarts));
+    }
+
+    // Mesmo prazo; só as avaliações que sobram depois de 'usadas' (para uma pesquisa feita a seguir)
+    Orcamento restante(long usadas) {
+        if (maxAvaliacoes == Long.MAX_VALUE) return this;
+        return new Orcamento(prazo, Math.max(0, maxAvaliacoes - usadas));
+    }
+
+    boolean esgotado(long avaliacoes) {
+        return avaliacoes >= maxAvaliacoes || prazoEsgotado();
+    }
+
+    // Só o prazo (um corte por avaliações é determinístico e repetir-se-ia)
+    boolean prazoEsgotado() {
+        return prazo != Long.MAX_VALUE && System.nanoTime() - prazo >= 0;
+    }
+
+    boolean limitaAvaliacoes() {
+        return maxAvaliacoes != Long.MAX_VALUE;
+    }
+
+    boolean ilimitado() {
+        return prazo == Long.MAX_VALUE && maxAvaliacoes == Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,244 @@
+package projeto_amc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Base das pesquisas locais sobre o grafo (Hill Climbing, Tabu, Simulated Annealing).
+// Guarda os deltas das operações: a variação de score de uma operação sobre u -> v só depende das
+// famílias que ela altera (a de v; a de u também, ao inverter), por isso, depois de aplicar uma
+// operação, só se recalculam os deltas dos pares que tocam nos nós cujos pais mudaram. A validade
+// (ciclos, limite de pais) depende do grafo todo e é sempre testada, mas com o fecho transitivo é O(1).
+abstract class PesquisaLocal {
+
+    // Estratégias disponíveis (para a interface e para criar)
+    static final String[] ESTRATEGIAS = {"Hill Climbing", "Tabu", "Simulated Annealing"};
+
+    // Avisado, na thread da pesquisa, sempre que g passa a ser o melhor grafo da pesquisa até agora.
+    // Chamado a cada passo do Hill Climbing: quem observa deve limitar o trabalho que faz.
+    interface Observador {
+        void melhorou(Graphoo g);
+    }
+
+    protected final Graphoo g;
+    protected final Amostra T;
+    protected final int k;
+    protected final int n;
+    protected final int classIndex;
+    protected final Orcamento orcamento;
+
+    // Delta da operação sobre u -> v: adicionar (se a aresta não existe) ou remover (se existe);
+    // e inverter (se existe). NaN = por calcular.
+    private final double[][] adicionarRemover;
+    private final double[][] inverter;
+
+    private final LongAdder avaliacoes = new LongAdder(); // Deltas calculados
+
+    // Sparse candidate (null = todos os atributos podem ser pais de todos)
+    private CandidatosPais candidatos;
+    private int periodoCandidatos; // Reestimar os candidatos a cada tantas operações (0 = só no fim)
+    private int aplicadas;
+
+    // Estruturas visitadas (hash de Zobrist -> restart que lá chegou primeiro), partilhadas pelos restarts
+    private ConcurrentMap<Long, Visita> visitadas;
+    private int dono;
+    private boolean duplicada; // Chegou a uma estrutura já visitada por outra pesquisa
+
+    private Observador observador; // null = ninguém acompanha a pesquisa
+
+    PesquisaLocal(Graphoo g, Amostra T, int k, Orcamento orcamento) {
+        this.g = g;
+        this.T = T;
+        this.k = k;
+        this.n = T.dim();
+        this.classIndex = n - 1;
+        this.orcamento = orcamento;
+        this.adicionarRemover = new double[n][n];
+        this.inverter = new double[n][n];
+        for (int u = 0; u < n; u++) {
+            Arrays.fill(adicionarRemover[u], Double.NaN);
+            Arrays.fill(inverter[u], Double.NaN);
+        }
+        g.trackReachability(true); // connected() passa a ser uma consulta ao fecho transitivo
+    }
+
+    static PesquisaLocal criar(String estrategia, Graphoo g, Amostra T, int k, Random rand, Orcamento orcamento) {
+        return criar(estrategia, g, T, k, rand, orcamento, 0, 0, 0);
+    }
+
+    // tenure e maxSemMelhoria (Tabu) e arrefecimento (Simulated Annealing): 0 = valores por omissão
+    static PesquisaLocal criar(String estrategia, Graphoo g, Amostra T, int k, Random rand, Orcamento orcamento,
+                               int tenure, int maxSemMelhoria, double arrefecimento) {
+        if (estrategia.equals(ESTRATEGIAS[0])) return new HillClimbing(g, T, k, orcamento);
+        if (estrategia.equals(ESTRATEGIAS[1])) return new PesquisaTabu(g, T, k, tenure, maxSemMelhoria, orcamento);
+        if (estrategia.equals(ESTRATEGIAS[2])) return new RecozimentoSimulado(g, T, k, rand, arrefecimento, orcamento);
+        throw new IllegalArgumentException("Estratégia desconhecida: " + estrategia);
+    }
+
+    // Restringe adicionar/inverter aos candidatos, reestimados a cada 'periodo' operações aplicadas
+    // (0 = só quando a pesquisa parar) e de novo no fim
+    void usarCandidatos(CandidatosPais candidatos, int periodo) {
+        this.candidatos = candidatos;
+        this.periodoCandidatos = periodo;
+        candidatos.estimar(g);
+    }
+
+    // Usa os mesmos candidatos (e período) de outra pesquisa sobre o mesmo grafo
+    void usarCandidatosDe(PesquisaLocal outra) {
+        if (outra.candidatos != null) usarCandidatos(outra.candidatos, outra.periodoCandidatos);
+    }
+
+    // Pode u passar a ser pai de v (ao adicionar u -> v ou inverter v -> u)?
+    protected boolean candidato(int u, int v) {
+        return candidatos == null || candidatos.permite(u, v);
+    }
+
+    // Reestima os candidatos para o grafo atual; devolve se mudaram (e há mais operações a avaliar)
+    protected boolean reestimarCandidatos() {
+        return candidatos != null && candidatos.estimar(g);
+    }
+
+    void observar(Observador observador) {
+        this.observador = observador;
+    }
+
+    // As subclasses chamam-no quando o grafo atual é o melhor da pesquisa
+    protected void novoMelhor() {
+        if (observador != null) observador.melhorou(g);
+    }
+
+    // Regista em 'visitadas' (partilhado) cada estrutura por onde a pesquisa passa, começando pela atual
+    void registarEstruturas(ConcurrentMap<Long, Visita> visitadas, int dono) {
+        this.visitadas = visitadas;
+        this.dono = dono;
+        visitar();
+    }
+
+    // A pesquisa parou por ter chegado a uma estrutura que outra pesquisa já tinha visitado?
+    // Nunca com limite de avaliações: a outra pesquisa pode esgotar o seu antes do ótimo, e qual das
+    // duas chega primeiro depende das threads, o que tiraria o determinismo ao resultado.
+    boolean cortada() {
+        return duplicada && cortaDuplicadas() && !orcamento.limitaAvaliacoes();
+    }
+
+    // Pode a pesquisa parar numa estrutura já visitada? Só se o caminho a partir de um grafo for
+    // determinístico (não nas pesquisas aleatórias ou com memória, nem com candidatos, que dependem
+    // do caminho feito até ali)
+    protected boolean cortaDuplicadas() {
+        return false;
+    }
+
+    protected boolean usaCandidatos() {
+        return candidatos != null;
+    }
+
+    private void visitar() {
+        if (visitadas == null) return;
+        Visita primeira = visitadas.putIfAbsent(g.hashEstrutura(), new Visita(dono, g.hashVerificacao()));
+        // Só é a mesma estrutura se o segundo hash também coincidir: uma colisão nos primeiros 64 bits
+        // não pode cortar um restart (a estrutura nova fica sem registo, o que só afeta a estatística)
+        if (primeira != null && primeira.dono != dono && primeira.verificacao == g.hashVerificacao()) duplicada = true;
+    }
+
+    // Corre a pesquisa sobre g (que fica com o melhor grafo encontrado); devolve o número de operações aplicadas
+    abstract int executar();
+
+    long avaliacoes() {
+        return avaliacoes.sum();
+    }
+
+    // Soma as avaliações de uma pesquisa auxiliar (p.ex. o polimento final) às desta
+    protected void contarAvaliacoes(PesquisaLocal auxiliar) {
+        avaliacoes.add(auxiliar.avaliacoes());
+    }
+
+    protected boolean esgotado() {
+        return orcamento.esgotado(avaliacoes.sum());
+    }
+
+    // Delta da operação op sobre u -> v (válida), da cache ou calculado
+    protected double delta(int u, int v, int op) {
+        double[][] cache = (op == 1) ? inverter : adicionarRemover;
+        double d = cache[u][v];
+        if (Double.isNaN(d)) {
+            d = g.variacaoScore(T, u, v, op);
+            cache[u][v] = d;
+            avaliacoes.increment();
+        }
+        return d;
+    }
+
+    protected void aplicar(Movimento m) {
+        alterar(m);
+        aplicadas++;
+        visitar();
+        if (candidatos != null && periodoCandidatos > 0 && aplicadas % periodoCandidatos == 0) candidatos.estimar(g);
+    }
+
+    private void alterar(Movimento m) {
+        if (m.op == 0) g.remove_edge(m.u, m.v);
+        else if (m.op == 1) g.invert_edge(m.u, m.v);
+        else if (m.op == 2) g.add_edge(m.u, m.v);
+
+        // Os pais de v mudaram (e os de u, ao inverter)
+        invalidar(m.v);
+        if (m.op == 1) invalidar(m.u);
+    }
+
+    // Desfaz as operações do histórico a partir da posição 'ate' (da mais recente para a mais antiga)
+    protected void desfazer(List<Movimento> historico, int ate) {
+        for (int i = historico.size() - 1; i >= ate; i--) {
+            Movimento m = historico.remove(i);
+            if (m.op == 0) alterar(new Movimento(0, 2, m.u, m.v, n));
+            else if (m.op == 1) alterar(new Movimento(0, 1, m.v, m.u, n));
+            else if (m.op == 2) alterar(new Movimento(0, 0, m.u, m.v, n));
+        }
+    }
+
+    // Esquece os deltas das operações que dependem da família de x: adicionar/remover y -> x
+    // e inverter y -> x ou x -> y
+    private void invalidar(int x) {
+        for (int y = 0; y < n; y++) {
+            adicionarRemover[y][x] = Double.NaN;
+            inverter[y][x] = Double.NaN;
+            inverter[x][y] = Double.NaN;
+        }
+    }
+
+    // Primeira visita a uma estrutura: o restart e o segundo hash do grafo
+    static final class Visita {
+        final int dono;
+        final long verificacao;
+
+        Visita(int dono, long verificacao) {
+            this.dono = dono;
+            this.verificacao = verificacao;
+        }
+    }
+
+    // Operação candidata (op: 0 = remover, 1 = inverter, 2 = adicionar)
+    static final class Movimento {
+        // Limiar mínimo de melhoria para aceitar uma operação no Hill Climbing
+        static final Movimento NENHUM = new Movimento(0.0001, -1, -1, -1, 0);
+
+        final double delta;
+        final int op, u, v;
+        final long ordem; // Posição na ordem sequencial (u, v, remover antes de inverter)
+
+        Movimento(double delta, int op, int u, int v, int n) {
+            this.delta = delta;
+            this.op = op;
+            this.u = u;
+            this.v = v;
+            this.ordem = (op == -1) ? Long.MAX_VALUE : ((long) u * n + v) * 2 + (op == 1 ? 1 : 0);
+        }
+
+        // Maior delta; em caso de empate, a que aparece primeiro (resultado independente das threads)
+        static Movimento melhor(Movimento a, Movimento b) {
+            if (a.delta != b.delta) return (a.delta > b.delta) ? a : b;
+            return (a.ordem <= b.ordem) ? a : b;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package projeto_amc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Pesquisa tabu: aplica sempre a melhor operação não tabu, mesmo que piore o score, para sair dos
+// ótimos locais. Um par {u, v} alterado fica tabu durante 'tenure' passos, exceto se a operação
+// levar a um score melhor do que o melhor já visto (critério de aspiração). Termina ao fim de
+// 'maxSemMelhoria' passos sem novo melhor (ou ao esgotar o orçamento) e volta ao melhor grafo.
+final class PesquisaTabu extends PesquisaLocal {
+
+    private static final double LIMIAR = 0.0001; // Melhoria mínima para contar como novo melhor
+    private static final Movimento NENHUM = new Movimento(Double.NEGATIVE_INFINITY, -1, -1, -1, 0);
+
+    private final int tenure;
+    private final int maxSemMelhoria;
+    private final int[][] tabuAte; // Passo até ao qual o par {u, v} é tabu (simétrica)
+    private int passo;
+    private double atual, melhor;
+
+    PesquisaTabu(Graphoo g, Amostra T, int k, Orcamento orcamento) {
+        this(g, T, k, 0, 0, orcamento);
+    }
+
+    // tenure <= 0: max(7, n/2); maxSemMelhoria <= 0: 2·n
+    PesquisaTabu(Graphoo g, Amostra T, int k, int tenure, int maxSemMelhoria, Orcamento orcamento) {
+        super(g, T, k, orcamento);
+        this.tenure = (tenure > 0) ? tenure : Math.max(7, T.dim() / 2);
+        this.maxSemMelhoria = (maxSemMelhoria > 0) ? maxSemMelhoria : 2 * T.dim();
+        this.tabuAte = new int[n][n];
+    }
+
+    @Override
+    int executar() {
+        atual = melhor = g.score(T);
+        List<Movimento> desdeMelhor = new ArrayList<>(); // Operações aplicadas depois do melhor grafo
+        int semMelhoria = 0;
+        while (!esgotado() && semMelhoria < maxSemMelhoria) {
+            // Vizinhança avaliada em paralelo, como no Hill Climbing (atual, melhor e passo só são lidos)
+            Movimento best = IntStream.range(0, n).parallel()
+                    .mapToObj(this::melhorDe)
+                    .reduce(NENHUM, Movimento::melhor);
+            if (best.op == -1) break;
+
+            aplicar(best);
+            passo++;
+            tabuAte[best.u][best.v] = tabuAte[best.v][best.u] = passo + tenure;
+            atual += best.delta;
+            if (atual > melhor + LIMIAR) {
+                melhor = atual;
+                desdeMelhor.clear();
+                semMelhoria = 0;
+                novoMelhor();
+            } else {
+                desdeMelhor.add(best);
+                semMelhoria++;
+            }
+        }
+        desfazer(desdeMelhor, 0); // Volta ao melhor grafo visitado
+        return passo;
+    }
+
+    // Melhor operação não tabu (ou tabu que bata o melhor score) sobre as arestas u -> v
+    private Movimento melhorDe(int u) {
+        Movimento best = NENHUM;
+        if (u == classIndex) return best;
+
+        for (int v = 0; v < n; v++) {
+            if (u == v || v == classIndex) continue;
+            boolean tabu = tabuAte[u][v] > passo;
+
+            if (!g.has_edge(u, v)) {
+                if (candidato(u, v) && g.operacaoValida(u, v, 2, k)) best = considerar(best, u, v, 2, tabu);
+            } else {
+                best = considerar(best, u, v, 0, tabu);
+                if (candidato(v, u) && g.operacaoValida(u, v, 1, k)) best = considerar(best, u, v, 1, tabu);
+            }
+        }
+        return best;
+    }
+
+    private Movimento considerar(Movimento best, int u, int v, int op, boolean tabu) {
+        double d = delta(u, v, op);
+        if (tabu && atual + d <= melhor + LIMIAR) return best; // Tabu sem aspiração
+        return (d > best.delta) ? new Movimento(d, op, u, v, n) : best;
+    }
+}
@@ -0,0 +1,104 @@
+package projeto_amc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Simulated annealing: propõe operações aleatórias e aceita as que pioram o score com
+// probabilidade exp(delta / t). A temperatura começa num valor estimado para aceitar metade das
+// variações típicas e desce geometricamente ('arrefecimento') a cada patamar de n·(n-1) propostas,
+// até 1/1000 do valor inicial, a alguns patamares seguidos sem aceitações ou ao fim do orçamento.
+// No fim o grafo volta ao melhor estado visitado e é levado ao ótimo local mais próximo com Hill Climbing.
+final class RecozimentoSimulado extends PesquisaLocal {
+
+    private static final double LIMIAR = 0.0001; // Melhoria mínima para contar como novo melhor
+    private static final int AMOSTRA_TEMPERATURA = 50;
+    private static final int PATAMARES_CONGELADO = 3; // Patamares seguidos sem aceitações para parar
+
+    private final Random rand;
+    private final double arrefecimento;
+
+    RecozimentoSimulado(Graphoo g, Amostra T, int k, Random rand, Orcamento orcamento) {
+        this(g, T, k, rand, 0, orcamento);
+    }
+
+    // arrefecimento em ]0, 1[; <= 0: 0.95
+    RecozimentoSimulado(Graphoo g, Amostra T, int k, Random rand, double arrefecimento, Orcamento orcamento) {
+        super(g, T, k, orcamento);
+        if (arrefecimento >= 1) throw new IllegalArgumentException("Arrefecimento inválido: " + arrefecimento);
+        this.rand = rand;
+        this.arrefecimento = (arrefecimento > 0) ? arrefecimento : 0.95;
+    }
+
+    @Override
+    int executar() {
+        if (classIndex < 2) return 0; // Menos de dois atributos: não há operações
+        double atual = g.score(T), melhor = atual;
+        List<Movimento> desdeMelhor = new ArrayList<>(); // Operações aceites depois do melhor grafo
+        int atributos = classIndex;
+        int patamar = Math.max(1, atributos * (atributos - 1));
+        double t = temperaturaInicial();
+        double tMin = t / 1000;
+        int aplicadas = 0, semAceites = 0;
+
+        while (!esgotado() && t > tMin) {
+            int aceites = 0;
+            for (int p = 0; p < patamar && !esgotado(); p++) {
+                Movimento m = proposta();
+                if (m == null) continue;
+                if (m.delta > 0 || rand.nextDouble() < Math.exp(m.delta / t)) {
+                    aplicar(m);
+                    aplicadas++;
+                    aceites++;
+                    atual += m.delta;
+                    if (atual > melhor + LIMIAR) {
+                        melhor = atual;
+                        desdeMelhor.clear();
+                        novoMelhor();
+                    } else {
+                        desdeMelhor.add(m);
+                    }
+                }
+            }
+            semAceites = (aceites == 0) ? semAceites + 1 : 0;
+            if (semAceites >= PATAMARES_CONGELADO) break; // Congelado
+            t *= arrefecimento;
+        }
+        desfazer(desdeMelhor, 0); // Volta ao melhor grafo visitado
+        if (!esgotado()) {
+            // O polimento só pode gastar o que sobra do orçamento, e as suas avaliações contam como desta pesquisa
+            HillClimbing polimento = new HillClimbing(g, T, k, orcamento.restante(avaliacoes()));
+            polimento.usarCandidatosDe(this);
+            polimento.observar(grafo -> novoMelhor()); // O polimento só melhora o melhor grafo
+            aplicadas += polimento.executar();
+            contarAvaliacoes(polimento);
+        }
+        return aplicadas;
+    }
+
+    // Operação aleatória válida (com o seu delta), ou null se a escolhida não for válida
+    private Movimento proposta() {
+        int u = rand.nextInt(classIndex), v = rand.nextInt(classIndex); // Só atributos
+        if (u == v) return null;
+        int op = g.has_edge(u, v) ? (rand.nextBoolean() ? 0 : 1) : 2;
+        if ((op == 2 && !candidato(u, v)) || (op == 1 && !candidato(v, u))) return null;
+        if (!g.operacaoValida(u, v, op, k)) return null;
+        return new Movimento(delta(u, v, op), op, u, v, n);
+    }
+
+    // Temperatura com que uma variação de tamanho médio (numa amostra de propostas) é aceite com
+    // probabilidade 1/2. Usa-se |delta| e não só as pioras: a partir do grafo inicial quase todas as
+    // operações podem melhorar o score.
+    private double temperaturaInicial() {
+        double soma = 0.0;
+        int contadas = 0;
+        for (int i = 0; i < 20 * AMOSTRA_TEMPERATURA && contadas < AMOSTRA_TEMPERATURA; i++) {
+            Movimento m = proposta();
+            if (m != null && Math.abs(m.delta) > LIMIAR) { // Ignora variações que são só arredondamento
+                soma += Math.abs(m.delta);
+                contadas++;
+            }
+        }
+        return (contadas == 0) ? 1.0 : (soma / contadas) / Math.log(2);
+    }
+}
@@ -0,0 +1,28 @@
+package projeto_amc;
+
+// Função de score decomponível: o score de um grafo é a soma dos scores de família (nó + pais).
+// Valores maiores são melhores. As implementações não guardam estado da pesquisa e podem ser
+// usadas por várias threads ao mesmo tempo.
+public interface Score {
+
+    Score MDL = new ScoreFamilia.Mdl();
+    Score BIC = new ScoreFamilia.Bic();
+    Score AIC = new ScoreFamilia.Aic();
+    Score BDEU = new ScoreFamilia.Bdeu(1.0);
+    Score FNML = new ScoreFamilia.Fnml();
+
+    // Nomes aceites por porNome (MDL é o score por omissão)
+    String[] NOMES = {"MDL", "BIC", "AIC", "BDeu", "fNML"};
+
+    // Score do nó i com os pais indicados (como em Graphoo.parents: a classe pode estar incluída)
+    double familia(Amostra a, int i, int[] pais);
+
+    String nome();
+
+    static Score porNome(String nome) {
+        for (Score s : new Score[] {MDL, BIC, AIC, BDEU, FNML}) {
+            if (s.nome().equalsIgnoreCase(nome.trim())) return s;
+        }
+        throw new IllegalArgumentException("Score desconhecido: " + nome);
+    }
+}
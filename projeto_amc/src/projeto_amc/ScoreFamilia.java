@@ -0,0 +1,226 @@
+package projeto_amc;
+
+import java.util.Arrays;
+
+// Base dos scores decomponíveis: obtém as contagens da família (ContagensFamilia, com a cache de
+// tabelas da amostra) e a tabela n·log2(n) da amostra, e delega a avaliação em cada score.
+// Todos os scores estão em bits (log2) e são para maximizar.
+abstract class ScoreFamilia implements Score {
+
+    private static final double LN2 = Math.log(2);
+
+    // Espaço de trabalho reutilizado: uma família por thread de cada vez
+    private static final ThreadLocal<ContagensFamilia> CONTAGENS = ThreadLocal.withInitial(ContagensFamilia::new);
+
+    @Override
+    public final double familia(Amostra a, int i, int[] pais) {
+        ContagensFamilia c = CONTAGENS.get();
+        c.preencher(a, i, pais);
+        return avaliar(a, i, pais, c);
+    }
+
+    abstract double avaliar(Amostra a, int i, int[] pais, ContagensFamilia c);
+
+    // I(xi; pais | C), em bits
+    static double informacaoMutua(Amostra a, int i, int[] pais) {
+        ContagensFamilia c = CONTAGENS.get();
+        c.preencher(a, i, pais);
+        return c.informacaoMutua(a.tabelaNLogN()) / a.length();
+    }
+
+    @Override
+    public String toString() {
+        return nome();
+    }
+
+    // N·I(xi; pais | C), sem penalização: ordena os pais candidatos (CandidatosPais); não é um score
+    // para a pesquisa, por isso não está em Score.NOMES
+    static final Score INFORMACAO_MUTUA = new ScoreFamilia() {
+        @Override
+        double avaliar(Amostra a, int i, int[] pais, ContagensFamilia c) {
+            return c.informacaoMutua(a.tabelaNLogN());
+        }
+
+        @Override
+        public String nome() {
+            return "I";
+        }
+    };
+
+    // MDL do projeto: N·I(xi; pais | C) menos a penalização (|Xi| - 1)·Π|pais|·|C|·log2(N)/2
+    static final class Mdl extends ScoreFamilia {
+
+        @Override
+        double avaliar(Amostra a, int i, int[] pais, ContagensFamilia c) {
+            // LL: Verosimilhança; mede o quão bem a rede descreve os dados
+            double LL = c.informacaoMutua(a.tabelaNLogN());
+
+            // Número de parâmetros livres (os pais do grafo já incluem a classe)
+            double domainParents = 1.0;
+            for (int p : pais) domainParents *= a.domain(p);
+            double params = (c.r - 1) * domainParents * c.domClasse;
+
+            return LL - (params * a.log2Tamanho()) / 2.0;
+        }
+
+        @Override
+        public String nome() {
+            return "MDL";
+        }
+    }
+
+    // BIC: log-verosimilhança menos (|Xi| - 1)·q·log2(N)/2, com q configurações de (pais, classe)
+    static final class Bic extends ScoreFamilia {
+
+        @Override
+        double avaliar(Amostra a, int i, int[] pais, ContagensFamilia c) {
+            double params = (c.r - 1) * c.q;
+            return c.logVerosimilhanca(a.tabelaNLogN()) - params * a.log2Tamanho() / 2.0;
+        }
+
+        @Override
+        public String nome() {
+            return "BIC";
+        }
+    }
+
+    // AIC: log-verosimilhança menos o número de parâmetros livres (convertido para bits)
+    static final class Aic extends ScoreFamilia {
+
+        @Override
+        double avaliar(Amostra a, int i, int[] pais, ContagensFamilia c) {
+            double params = (c.r - 1) * c.q;
+            return c.logVerosimilhanca(a.tabelaNLogN()) - params / LN2;
+        }
+
+        @Override
+        public String nome() {
+            return "AIC";
+        }
+    }
+
+    // BDeu (Bayesian Dirichlet equivalente uniforme) com tamanho de amostra equivalente alfa.
+    // As configurações e células vazias contribuem com 0, por isso só se percorrem as não vazias.
+    static final class Bdeu extends ScoreFamilia {
+
+        private final double alfa;
+
+        Bdeu(double alfa) {
+            this.alfa = alfa;
+        }
+
+        @Override
+        double avaliar(Amostra a, int i, int[] pais, ContagensFamilia c) {
+            double aj = alfa / c.q, ajk = aj / c.r;
+            double lgAj = lgama(aj), lgAjk = lgama(ajk);
+            double s = 0.0;
+            int k = 0;
+            for (int j = 0; j < c.grupos; j++) {
+                s += lgAj - lgama(aj + c.nGrupo[j]);
+                for (; k < c.fimGrupo[j]; k++) s += lgama(ajk + c.nCelula[k]) - lgAjk;
+            }
+            return s / LN2;
+        }
+
+        @Override
+        public String nome() {
+            return "BDeu";
+        }
+    }
+
+    // fNML (NML factorizado): log-verosimilhança menos Σj log2 C(N(j), |Xi|), onde C é o regret
+    // multinomial. As tabelas de log2 C(n, r), n em [0, N], são calculadas uma vez por domínio r.
+    static final class Fnml extends ScoreFamilia {
+
+        // Tabelas da última amostra usada (substituídas em bloco: leitura sem locks)
+        private volatile Regretos regretos;
+
+        private static final class Regretos {
+            final Amostra amostra;
+            final int N;
+            final double[][] porDominio;
+
+            Regretos(Amostra amostra, int N, double[][] porDominio) {
+                this.amostra = amostra;
+                this.N = N;
+                this.porDominio = porDominio;
+            }
+        }
+
+        @Override
+        double avaliar(Amostra a, int i, int[] pais, ContagensFamilia c) {
+            double[] regret = regret(a, c.r);
+            double s = c.logVerosimilhanca(a.tabelaNLogN());
+            for (int j = 0; j < c.grupos; j++) s -= regret[c.nGrupo[j]];
+            return s;
+        }
+
+        private double[] regret(Amostra a, int r) {
+            Regretos t = regretos;
+            int N = a.length();
+            if (t != null && t.amostra == a && t.N == N && r < t.porDominio.length && t.porDominio[r] != null) {
+                return t.porDominio[r];
+            }
+            synchronized (this) {
+                t = regretos;
+                double[][] tabelas = (t != null && t.amostra == a && t.N == N) ? t.porDominio : new double[0][];
+                if (r < tabelas.length && tabelas[r] != null) return tabelas[r];
+                tabelas = Arrays.copyOf(tabelas, Math.max(tabelas.length, r + 1));
+                tabelas[r] = log2Regret(a.tabelaNLogN(), N, r);
+                regretos = new Regretos(a, N, tabelas);
+                return tabelas[r];
+            }
+        }
+
+        // log2 C(n, r) para n em [0, N]. C(n, 2) exato (soma binomial) até 1000, depois pela expansão
+        // de Szpankowski; C(n, k + 2) = C(n, k + 1) + n/k·C(n, k) (Kontkanen & Myllymäki), em log.
+        static double[] log2Regret(double[] f, int N, int r) {
+            double[] t = new double[N + 1];
+            if (r <= 1) return t;
+            double[] logFat = new double[Math.min(N, 1000) + 1]; // log2(n!)
+            for (int n = 1; n < logFat.length; n++) logFat[n] = logFat[n - 1] + Math.log(n) / LN2;
+            for (int n = 1; n <= N; n++) {
+                double c2;
+                if (n < logFat.length) {
+                    c2 = 0.0;
+                    for (int h = 0; h <= n; h++) {
+                        // binom(n, h)·(h/n)^h·((n-h)/n)^(n-h)
+                        c2 += Math.pow(2, logFat[n] - logFat[h] - logFat[n - h] + f[h] + f[n - h] - f[n]);
+                    }
+                } else {
+                    c2 = Math.sqrt(Math.PI * n / 2) + 2.0 / 3 + Math.sqrt(2 * Math.PI) / (24 * Math.sqrt(n)) - 4.0 / (135 * n);
+                }
+                double anterior = 0.0, atual = Math.log(c2) / LN2; // log2 C(n, 1), log2 C(n, 2)
+                for (int k = 1; k + 2 <= r; k++) {
+                    double seguinte = atual + Math.log1p((double) n / k * Math.pow(2, anterior - atual)) / LN2;
+                    anterior = atual;
+                    atual = seguinte;
+                }
+                t[n] = atual;
+            }
+            return t;
+        }
+
+        @Override
+        public String nome() {
+            return "fNML";
+        }
+    }
+
+    // log Γ(x) (aproximação de Lanczos, g = 7); sem alocações
+    static double lgama(double x) {
+        if (x < 0.5) return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - lgama(1 - x);
+        x -= 1;
+        double s = 0.99999999999980993;
+        s += 676.5203681218851 / (x + 1);
+        s += -1259.1392167224028 / (x + 2);
+        s += 771.32342877765313 / (x + 3);
+        s += -176.61502916214059 / (x + 4);
+        s += 12.507343278686905 / (x + 5);
+        s += -0.13857109526572012 / (x + 6);
+        s += 9.9843695780195716e-6 / (x + 7);
+        s += 1.5056327351493116e-7 / (x + 8);
+        double t = x + 7.5;
+        return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(s);
+    }
+}
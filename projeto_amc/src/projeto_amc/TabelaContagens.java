@@ -0,0 +1,89 @@
+package projeto_amc;
+
+// Tabela de contagens conjuntas (estatísticas suficientes) de um conjunto de variáveis.
+// As variáveis estão ordenadas e a tabela está em "mixed radix": a primeira variável varia mais depressa.
+final class TabelaContagens {
+
+    final int[] vars;      // Variáveis (ordenadas, sem repetições)
+    final int[] dims;      // Domínio de cada variável
+    final int[] strides;   // Passo de cada variável na tabela
+    final int[] contagens; // N(vals) para cada combinação de valores
+
+    TabelaContagens(int[] vars, int[] dims) {
+        this.vars = vars;
+        this.dims = dims;
+        this.strides = new int[vars.length];
+        int tamanho = 1;
+        for (int k = 0; k < vars.length; k++) {
+            strides[k] = tamanho;
+            tamanho *= dims[k];
+        }
+        this.contagens = new int[tamanho];
+    }
+
+    int tamanho() {
+        return contagens.length;
+    }
+
+    // Posição da variável na tabela (-1 se não pertence)
+    int posicao(int var) {
+        for (int k = 0; k < vars.length; k++) {
+            if (vars[k] == var) return k;
+        }
+        return -1;
+    }
+
+    // Conta uma linha de dados
+    void adicionar(int[] linha) {
+        int idx = 0;
+        for (int k = 0; k < vars.length; k++) idx += linha[vars[k]] * strides[k];
+        contagens[idx]++;
+    }
+
+    // N(var = val) para uma conjunção de igualdades que fixa todas as variáveis da tabela.
+    // Variáveis repetidas com valores diferentes dão 0 (tal como a varredura).
+    int contagem(int[] var, int[] val) {
+        int idx = 0;
+        for (int k = 0; k < var.length; k++) {
+            boolean repetida = false;
+            for (int j = 0; j < k; j++) {
+                if (var[j] == var[k]) {
+                    if (val[j] != val[k]) return 0;
+                    repetida = true;
+                    break;
+                }
+            }
+            if (repetida) continue;
+            int p = posicao(var[k]);
+            if (val[k] < 0 || val[k] >= dims[p]) return 0;
+            idx += val[k] * strides[p];
+        }
+        return contagens[idx];
+    }
+
+    // Marginaliza a tabela para um subconjunto ordenado das suas variáveis (soma as restantes)
+    TabelaContagens marginal(int[] sub) {
+        int[] subDims = new int[sub.length];
+        int[] passo = new int[vars.length]; // passo na tabela marginal (0 = variável somada)
+        for (int k = 0; k < sub.length; k++) subDims[k] = dims[posicao(sub[k])];
+        TabelaContagens m = new TabelaContagens(sub, subDims);
+        for (int k = 0; k < vars.length; k++) {
+            int p = indice(sub, vars[k]);
+            passo[k] = (p < 0) ? 0 : m.strides[p];
+        }
+        for (int c = 0; c < contagens.length; c++) {
+            if (contagens[c] == 0) continue;
+            int idx = 0;
+            for (int k = 0; k < vars.length; k++) {
+                if (passo[k] != 0) idx += ((c / strides[k]) % dims[k]) * passo[k];
+            }
+            m.contagens[idx] += contagens[c];
+        }
+        return m;
+    }
+
+    private static int indice(int[] v, int x) {
+        for (int k = 0; k < v.length; k++) if (v[k] == x) return k;
+        return -1;
+    }
+}